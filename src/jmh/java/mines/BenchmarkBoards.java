@@ -0,0 +1,34 @@
+package mines;
+
+// Shared helpers for the benchmarks.
+final class BenchmarkBoards {
+
+    static final long SEED = 20240601L;
+
+    private BenchmarkBoards() {
+    }
+
+    static BoardConfig config(int size, double density) {
+        int cells = size * size;
+        int mines = Math.min(cells - 1, (int) (cells * density));
+        return BoardConfig.custom(size, size, mines);
+    }
+
+    // An engine whose games are dealt by newGame(), not by the first reveal,
+    // so a benchmark sees the seed's whole board and every cell's count.
+    static GameEngine dealtEngine(BoardConfig config) {
+        GameEngine engine = new GameEngine(config);
+        engine.setFirstClickSafe(false);
+        return engine;
+    }
+
+    // First covered safe cell with the given neighbour count, or -1. Counts
+    // are only known once the mines are placed.
+    static int findCovered(GameEngine engine, int count) {
+        PackedCells cells = engine.getCells();
+        for (int pos = 0; pos < engine.getAllCells(); pos++) {
+            if (!cells.isRevealed(pos) && !cells.isMine(pos) && engine.neighborMines(pos) == count) return pos;
+        }
+        return -1;
+    }
+}
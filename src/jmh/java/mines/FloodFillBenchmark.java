@@ -0,0 +1,52 @@
+package mines;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// findEmptyCells() on open boards, where one click uncovers most of the grid.
+// The board is rebuilt before every call, outside the measured time.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FloodFillBenchmark {
+
+    @Param({"16", "256", "1024"})
+    int size;
+
+    @Param({"0.0", "0.01", "0.05"})
+    double density;
+
+    private GameEngine engine;
+    private int start;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        engine = BenchmarkBoards.dealtEngine(BenchmarkBoards.config(size, density));
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        engine.newGame(BenchmarkBoards.SEED);
+        start = BenchmarkBoards.findCovered(engine, 0);
+    }
+
+    @Benchmark
+    public int findEmptyCells() {
+        return engine.findEmptyCells(start);
+    }
+}
@@ -0,0 +1,70 @@
+package mines;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Single moves and the game-end check, which should not depend on board size.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+
+    @State(Scope.Thread)
+    public static class Game {
+        @Param({"16", "256", "1024"})
+        int size;
+
+        @Param({"0.05", "0.15", "0.50"})
+        double density;
+
+        GameEngine engine;
+        int numberedCell;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            engine = BenchmarkBoards.dealtEngine(BenchmarkBoards.config(size, density));
+            engine.newGame(BenchmarkBoards.SEED);
+            numberedCell = BenchmarkBoards.findCovered(engine, 1);
+            if (numberedCell < 0) throw new IllegalStateException("No cell next to exactly one mine");
+        }
+    }
+
+    // Reveal needs a covered cell each time, so the board is reset per call.
+    @State(Scope.Thread)
+    public static class FreshGame extends Game {
+        @Setup(Level.Invocation)
+        public void reset() {
+            engine.newGame(BenchmarkBoards.SEED);
+        }
+    }
+
+    @Benchmark
+    public boolean revealNumberedCell(FreshGame game) {
+        return game.engine.reveal(game.numberedCell);
+    }
+
+    // Flag then unflag, so the board is back where it started.
+    @Benchmark
+    public boolean flagAndUnflag(Game game) {
+        return game.engine.toggleFlag(game.numberedCell) & game.engine.toggleFlag(game.numberedCell);
+    }
+
+    @Benchmark
+    public boolean checkWin(Game game) {
+        return game.engine.checkWin();
+    }
+}
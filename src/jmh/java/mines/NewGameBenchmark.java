@@ -0,0 +1,46 @@
+package mines;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// newGame(): storage reset and mine placement. Neighbour counts are only
+// computed as cells are revealed, so they are not part of it.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NewGameBenchmark {
+
+    @Param({"16", "256", "1024"})
+    int size;
+
+    @Param({"0.05", "0.15", "0.50"})
+    double density;
+
+    private GameEngine engine;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        engine = BenchmarkBoards.dealtEngine(BenchmarkBoards.config(size, density));
+    }
+
+    @Benchmark
+    public int newGame() {
+        engine.newGame(seed++);
+        return engine.getMinesLeft();
+    }
+}
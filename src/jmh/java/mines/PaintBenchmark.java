@@ -0,0 +1,70 @@
+package mines;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JLabel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Board.paint() into an offscreen image: a full frame and a one-cell clip,
+// as after a single flag toggle.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintBenchmark {
+
+    private static final int CELL_SIZE = 15;
+
+    @Param({"16", "64", "256"})
+    int size;
+
+    @Param({"0.05", "0.15", "0.50"})
+    double density;
+
+    private Board board;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup
+    public void setUp() {
+        board = new Board(new JLabel(), BenchmarkBoards.config(size, density));
+        board.getEngine().newGame(BenchmarkBoards.SEED);
+        image = new BufferedImage(size * CELL_SIZE, size * CELL_SIZE, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintFullBoard() {
+        graphics.setClip(0, 0, image.getWidth(), image.getHeight());
+        board.paint(graphics);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage paintOneCell() {
+        graphics.setClip(0, 0, CELL_SIZE, CELL_SIZE);
+        board.paint(graphics);
+        return image;
+    }
+}
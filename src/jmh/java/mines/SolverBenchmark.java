@@ -0,0 +1,45 @@
+package mines;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Solver.solve() on a standard board right after the opening click, which is
+// the hint/bot call made after every move.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"beginner", "intermediate", "expert"})
+    String preset;
+
+    private GameEngine engine;
+    private Solver solver;
+
+    @Setup
+    public void setUp() {
+        engine = new GameEngine(BoardConfig.fromArgs(new String[]{preset}));
+        engine.newGame(BenchmarkBoards.SEED);
+        engine.reveal(BenchmarkBoards.findCovered(engine, 0));
+        solver = new Solver();
+    }
+
+    @Benchmark
+    public int solve() {
+        return solver.solve(engine);
+    }
+}
@@ -1,30 +1,33 @@
 package mines;
 
+import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Graphics;
-import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.Arrays;
-import java.security.SecureRandom;
+import java.awt.event.MouseWheelEvent;
 
-import javax.swing.ImageIcon;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 
 
-class Board extends JPanel {
+class Board extends JPanel implements Scrollable {
 
     private static final long serialVersionUID = 6195235521361212179L;
-    private static final int NUM_IMAGES = 15;
-    private static final int CELL_SIZE = 15;
-
-    private static final int COVER_FOR_CELL = 10;
-    private static final int MARK_FOR_CELL   = 10;
-    private static final int EMPTY_CELL      = 0;
-    private static final int MINE_CELL       = 9;
-    private static final int COVERED_MINE_CELL = MINE_CELL + COVER_FOR_CELL; // 19
-    private static final int MARKED_MINE_CELL  = COVERED_MINE_CELL + MARK_FOR_CELL; // 29
+    static final int DEFAULT_CELL_SIZE = 15;
+    // Cell sizes, in pixels, that zooming steps through.
+    private static final int[] ZOOM_LEVELS = {4, 6, 8, 10, 12, 15, 20, 25, 30, 40, 50, 60};
+    private static final int MAX_VIEWPORT_WIDTH = 960;
+    private static final int MAX_VIEWPORT_HEIGHT = 720;
 
     private static final int DRAW_MINE           = 9;
     private static final int DRAW_COVER          = 10;
@@ -41,220 +44,367 @@ class Board extends JPanel {
     private static final String GAME_WON = "Game won!";
     private static final String GAME_OVER = "Game Over";
 
-    private int[] field;
-    private int[] markers;
-    private boolean inGame;
-    private int minesLeft;
-    private transient Image[] img;
+    // Red tints for the probability overlay, from 0% to 100% in 16 steps.
+    private static final Color[] OVERLAY_TINTS = new Color[17];
+    static {
+        for (int i = 0; i < OVERLAY_TINTS.length; i++) {
+            OVERLAY_TINTS[i] = new Color(255, 0, 0, i * 10);
+        }
+    }
+
+    // Work per component for the overlay, which is recomputed on
+    // the event thread after every move: a few milliseconds at worst. Until
+    // a tangled frontier is simplified by play, the board shows no tints.
+    static final long OVERLAY_NODE_LIMIT = 200_000L;
 
-    private int mines = 40;
-    private int rows  = 16;
-    private int cols  = 16;
-    private int allCells;
+    private transient SpriteAtlas atlas;
+    private int cellSize = DEFAULT_CELL_SIZE;
 
     private final JLabel statusbar;
-    private final SecureRandom random = new SecureRandom();
+    private final GameEngine engine;
 
-    private int currentPlayer = 0;
-    private int[] playerFlags = new int[2];
-    private boolean gameWon = false;
     private boolean gameEndDetected = false;
 
+    // Set while a view update is queued on the EDT; any number of engine
+    // events before it runs end in one repaint and one status update.
+    private boolean updateQueued = false;
+
+    // Non-null while the mine probability overlay is shown.
+    private transient MineProbabilities probabilities;
+
+    // Undo and redo are for practice only; in a two-player game they would
+    // take back a move the other player has already answered.
+    private boolean practice = false;
+
     public Board(JLabel statusbar) {
+        this(statusbar, BoardConfig.INTERMEDIATE);
+    }
+
+    public Board(JLabel statusbar, BoardConfig config) {
         this.statusbar = statusbar;
+        this.engine = new GameEngine(config);
+        engine.addListener(new ViewUpdater());
 
-        img = new Image[NUM_IMAGES];
-        for (int i = 0; i < NUM_IMAGES; i++) {
-            img[i] = new ImageIcon(getClass().getClassLoader().getResource(i + ".gif")).getImage();
-        }
+        this.atlas = SpriteAtlas.forSize(cellSize);
 
+        updatePreferredSize();
         setDoubleBuffered(true);
         addMouseListener(new MinesAdapter());
-        newGame();
+        addMouseWheelListener(this::mouseWheelMoved);
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_Z:
+                        if (!practice || !e.isControlDown()) break;
+                        if (e.isShiftDown()) engine.redo();
+                        else engine.undo();
+                        break;
+                    case KeyEvent.VK_Y:
+                        if (practice && e.isControlDown()) engine.redo();
+                        break;
+                    case KeyEvent.VK_P:
+                        setProbabilityOverlay(probabilities == null);
+                        break;
+                    case KeyEvent.VK_PLUS:
+                    case KeyEvent.VK_EQUALS:
+                    case KeyEvent.VK_ADD:
+                        zoom(1, visibleCentre());
+                        break;
+                    case KeyEvent.VK_MINUS:
+                    case KeyEvent.VK_SUBTRACT:
+                        zoom(-1, visibleCentre());
+                        break;
+                    default:
+                        break;
+                }
+            }
+        });
+        setFocusable(true);
+        statusbar.setText(getStatusText());
+    }
+
+    // Keeps a move history and turns on Ctrl+Z / Ctrl+Y (or Ctrl+Shift+Z).
+    void setPractice(boolean practice) {
+        this.practice = practice;
+        engine.setHistory(practice ? new MoveHistory() : null);
+    }
+
+    boolean isPractice() { return practice; }
+
+    void newGame(BoardConfig config) {
+        engine.newGame(config);
+        updatePreferredSize();
     }
 
     void newGame() {
-        initializeBoard();
-        placeMinesRandomly();
-        updateNeighborCounts();
-        repaint();
+        engine.newGame();
+    }
+
+    // Moves from a bot or a replay, kept or undone together; the view is
+    // brought up to date once, however many moves there were.
+    boolean applyMoves(long[] moves, int count, int[] results) {
+        return engine.applyBatch(moves, count, results);
     }
 
-    private void initializeBoard() {
-        setInGame(true);
-        setGameWon(false);
-        gameEndDetected = false;
-        mines = 40;
-        rows = 16;
-        cols = 16;
-        allCells = rows * cols;
-        setMinesLeft(mines);
+    // EVENTS
 
-        field = new int[allCells];
-        Arrays.fill(field, COVER_FOR_CELL);
+    private final class ViewUpdater implements GameListener {
+        @Override
+        public void gameStarted(GameEngine engine) {
+            gameEndDetected = false;
+            queueUpdate();
+        }
 
-        markers = new int[allCells];
-        Arrays.fill(markers, -1);
+        @Override
+        public void cellsRevealed(int pos, int count) { queueUpdate(); }
 
-        playerFlags[0] = playerFlags[1] = 0;
-        setCurrentPlayer(0);
+        @Override
+        public void flagChanged(int pos, int player, boolean flagged) { queueUpdate(); }
 
-        statusbar.setText(getStatusText());
+        @Override
+        public void turnChanged(int player) { queueUpdate(); }
+
+        @Override
+        public void movesApplied(int count) { queueUpdate(); }
+
+        @Override
+        public void movesUndone(int count) {
+            gameEndDetected = false;
+            queueUpdate();
+        }
+
+        @Override
+        public void gameWon(int flagsPlayer1, int flagsPlayer2) { queueUpdate(); }
+
+        @Override
+        public void gameLost(int loser) { queueUpdate(); }
     }
 
-    private String getStatusText() {
-        return PLAYER_PREFIX + (currentPlayer + 1) + "'s turn | Mines left: " + minesLeft +
-               " | Flags: P1=" + playerFlags[0] + " P2=" + playerFlags[1];
+    // Moves come from the EDT, so the flag needs no locking.
+    private void queueUpdate() {
+        if (updateQueued) return;
+        updateQueued = true;
+        SwingUtilities.invokeLater(this::updateView);
     }
 
-    private void placeMinesRandomly() {
-        int placed = 0;
-        while (placed < mines) {
-            int pos = random.nextInt(allCells);
-            if (field[pos] == COVER_FOR_CELL) {
-                field[pos] = COVERED_MINE_CELL;
-                placed++;
-            }
+    // Brings the view in line with the engine after a batch of events.
+    void updateView() {
+        updateQueued = false;
+        if (probabilities != null) {
+            // a move can shift probabilities anywhere on the board
+            updateProbabilities();
+            engine.clearDirtyRegion();
+            repaint();
+        } else {
+            repaintDirtyRegion();
         }
+        updateStatus();
+        if (!isInGame()) checkGameEnd();
     }
 
-    private void updateNeighborCounts() {
-        for (int pos = 0; pos < allCells; pos++) {
-            if (field[pos] == COVERED_MINE_CELL) {
-                incrementNeighbors(pos);
-            }
-        }
+    private void updateStatus() {
+        if (isInGame()) statusbar.setText(getStatusText());
+        else if (isGameWon()) updateWinStatus();
+        else updateLossStatus();
+    }
+
+    // Tints every covered cell by its chance of being a mine; toggled with P.
+    void setProbabilityOverlay(boolean show) {
+        probabilities = show ? new MineProbabilities(OVERLAY_NODE_LIMIT) : null;
+        updateProbabilities();
+        repaint();
+    }
+
+    boolean isProbabilityOverlay() { return probabilities != null; }
+
+    MineProbabilities getProbabilities() { return probabilities; }
+
+    private void updateProbabilities() {
+        if (probabilities != null) probabilities.compute(engine);
+    }
+
+    private String getStatusText() {
+        return PLAYER_PREFIX + (getCurrentPlayer() + 1) + "'s turn | Mines left: " + getMinesLeft() +
+               " | Flags: P1=" + engine.getPlayerFlags(0) + " P2=" + engine.getPlayerFlags(1);
     }
 
     public void incrementNeighbors(int minePos) {
-        int row = minePos / cols;
-        int col = minePos % cols;
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) continue;
-                int nr = row + dr;
-                int nc = col + dc;
-                if (isValidCell(nr, nc)) {
-                    int np = nr * cols + nc;
-                    if (field[np] != COVERED_MINE_CELL) {
-                        field[np]++;
-                    }
-                }
-            }
-        }
+        engine.incrementNeighbors(minePos);
     }
 
     public boolean isValidCell(int row, int col) {
-        return row >= 0 && row < rows && col >= 0 && col < cols;
+        return engine.isValidCell(row, col);
     }
 
-    public void findEmptyCells(int pos) {
-        int row = pos / cols;
-        int col = pos % cols;
+    public int findEmptyCells(int pos) {
+        return engine.findEmptyCells(pos);
+    }
 
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                // Only ONE continue allowed → this is the only one
-                if (dr == 0 && dc == 0) continue;
+    // VIEWPORT
+    // Inside a JScrollPane the clip is the visible part of the board, so a
+    // frame costs the same on a 16x16 board as on a 10,000x10,000 one.
 
-                int nr = row + dr;
-                int nc = col + dc;
+    private void updatePreferredSize() {
+        setPreferredSize(new Dimension(engine.getCols() * cellSize, engine.getRows() * cellSize));
+        revalidate();
+    }
 
-                // Bounds check + validity in one guard
-                if (!isValidCell(nr, nc)) continue;
+    int getCellSize() { return cellSize; }
 
-                int np = nr * cols + nc;
-                int value = field[np];
+    void setCellSize(int size) {
+        zoomTo(size, visibleCentre());
+    }
 
-                // Skip if already revealed or flagged
-                if (value < COVER_FOR_CELL || value >= MARKED_MINE_CELL) {
-                    continue;
-                }
+    // Moves `steps` zoom levels in or out, keeping the board point under
+    // `anchor` (board coordinates) where it is on screen.
+    void zoom(int steps, Point anchor) {
+        int level = 0;
+        while (level < ZOOM_LEVELS.length - 1 && ZOOM_LEVELS[level] < cellSize) level++;
+        level = Math.max(0, Math.min(ZOOM_LEVELS.length - 1, level + steps));
+        zoomTo(ZOOM_LEVELS[level], anchor);
+    }
+
+    private void zoomTo(int size, Point anchor) {
+        if (size == cellSize || size <= 0) return;
+        int old = cellSize;
+        cellSize = size;
+        atlas = SpriteAtlas.forSize(size);
+        updatePreferredSize();
+
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        if (viewport != null) {
+            Point view = viewport.getViewPosition();
+            setSize(getPreferredSize());  // so the viewport accepts the new position now
+            int x = (int) ((long) anchor.x * size / old) - (anchor.x - view.x);
+            int y = (int) ((long) anchor.y * size / old) - (anchor.y - view.y);
+            viewport.setViewPosition(new Point(Math.max(0, x), Math.max(0, y)));
+        }
+        repaint();
+    }
 
-                // Reveal the cell
-                field[np] -= COVER_FOR_CELL;
+    private Point visibleCentre() {
+        Rectangle visible = getVisibleRect();
+        return new Point(visible.x + visible.width / 2, visible.y + visible.height / 2);
+    }
 
-                // If it's empty (now 0), recurse into neighbors
-                if (field[np] == 0) {
-                    findEmptyCells(np);
-                }
-                // Numbered cells (1–8) are revealed but not recursed into → correct behavior
-            }
+    // Ctrl+wheel zooms around the pointer; a plain wheel scrolls as usual.
+    private void mouseWheelMoved(MouseWheelEvent e) {
+        if (e.isControlDown()) {
+            zoom(-e.getWheelRotation(), e.getPoint());
+        } else if (getParent() != null) {
+            getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, e, getParent()));
         }
     }
+
     @Override
-    public void paint(Graphics g) {
-        int numCovers = 0;
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                int idx = i * cols + j;
-                int cell = field[idx];
-                int marker = markers[idx];
+    public Dimension getPreferredScrollableViewportSize() {
+        Dimension preferred = getPreferredSize();
+        return new Dimension(Math.min(preferred.width, MAX_VIEWPORT_WIDTH),
+                             Math.min(preferred.height, MAX_VIEWPORT_HEIGHT));
+    }
 
-                if (inGame && cell == MINE_CELL) {
-                    inGame = false;
-                    updateLossStatus();  // Trigger loss message
-                }
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+        return cellSize;
+    }
 
-                int drawIndex = !inGame ? calculateDrawIndexGameOver(cell, marker)
-                                        : calculateDrawIndexInGame(cell, marker);
-                if (inGame && drawIndex == DRAW_COVER) numCovers++;
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+        int extent = orientation == SwingConstants.VERTICAL ? visible.height : visible.width;
+        return Math.max(cellSize, extent - cellSize);
+    }
 
-                g.drawImage(img[drawIndex], j * CELL_SIZE, i * CELL_SIZE, this);
-            }
+    @Override
+    public boolean getScrollableTracksViewportWidth() { return false; }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() { return false; }
+
+    // PAINTING
+
+    // Draws only the cells that intersect the clip and changes nothing; moves
+    // repaint just the bounding box of the cells they changed (see
+    // repaintDirtyRegion).
+    @Override
+    public void paint(Graphics g) {
+        Object event = GameEvents.EVENTS.beginPaint();
+        long start = Metrics.start();
+        int rows = engine.getRows();
+        int cols = engine.getCols();
+
+        int firstRow = 0;
+        int lastRow = rows - 1;
+        int firstCol = 0;
+        int lastCol = cols - 1;
+        Rectangle clip = g.getClipBounds();
+        if (clip != null) {
+            firstRow = Math.max(0, clip.y / cellSize);
+            lastRow = Math.min(rows - 1, (clip.y + clip.height - 1) / cellSize);
+            firstCol = Math.max(0, clip.x / cellSize);
+            lastCol = Math.min(cols - 1, (clip.x + clip.width - 1) / cellSize);
         }
 
-        if (numCovers == 0 && inGame) {
-            BoardState state = analyzeBoardState();
-            if (state.uncoveredSafeCells == state.totalSafeCells &&
-                state.correctlyFlaggedMines == mines && !state.hasWrongFlags) {
-                inGame = false;
-                gameWon = true;
+        for (int i = firstRow; i <= lastRow; i++) {
+            for (int j = firstCol; j <= lastCol; j++) {
+                int idx = i * cols + j;
+                int cell = engine.cellAt(idx);
+                int marker = engine.markerAt(idx);
+
+                int drawIndex = !isInGame() ? calculateDrawIndexGameOver(cell, marker)
+                                            : calculateDrawIndexInGame(cell, marker);
+
+                atlas.draw(g, drawIndex, j * cellSize, i * cellSize);
+                if (probabilities != null && isInGame() && drawIndex == DRAW_COVER) {
+                    paintProbability(g, idx, j * cellSize, i * cellSize);
+                }
             }
         }
 
-        if (!inGame) {
-            if (gameWon) updateWinStatus();
-            checkGameEnd();
-        } else {
-            statusbar.setText(getStatusText());
-        }
+        Metrics.PAINT.recordSince(start);
+        GameEvents.EVENTS.endPaint(event, rows, cols, cellSize,
+                Math.max(0, lastRow - firstRow + 1) * Math.max(0, lastCol - firstCol + 1));
     }
 
-    private int calculateDrawIndexInGame(int cell, int marker) {
-        if (cell >= 20) {
+    private void paintProbability(Graphics g, int pos, int x, int y) {
+        double p = probabilities.probability(pos);
+        if (Double.isNaN(p)) return;
+        g.setColor(OVERLAY_TINTS[(int) Math.round(p * (OVERLAY_TINTS.length - 1))]);
+        g.fillRect(x, y, cellSize, cellSize);
+    }
+
+    private void repaintDirtyRegion() {
+        if (!engine.hasDirtyRegion()) return;
+
+        int x = engine.getDirtyMinCol() * cellSize;
+        int y = engine.getDirtyMinRow() * cellSize;
+        int w = (engine.getDirtyMaxCol() - engine.getDirtyMinCol() + 1) * cellSize;
+        int h = (engine.getDirtyMaxRow() - engine.getDirtyMinRow() + 1) * cellSize;
+        engine.clearDirtyRegion();
+        repaint(x, y, w, h);
+    }
+
+    static int calculateDrawIndexInGame(int cell, int marker) {
+        if (cell >= GameEngine.MARKED_CELL) {
             return marker == 0 ? DRAW_MARK_P1 : DRAW_MARK_P2;
         }
-        if (cell > MINE_CELL) {
+        if (cell > GameEngine.MINE_CELL) {
             return DRAW_COVER;
         }
         return cell;
     }
 
-    private int calculateDrawIndexGameOver(int cell, int marker) {
-        if (cell == COVERED_MINE_CELL) return DRAW_MINE;
-        if (cell == MARKED_MINE_CELL) return marker == 0 ? DRAW_MARK_P1 : DRAW_MARK_P2;
-        if (cell >= 20 && cell <= 28) return marker == 0 ? DRAW_WRONG_MARK_P1 : DRAW_WRONG_MARK_P2;
-        if (cell > MINE_CELL) return DRAW_COVER;
+    static int calculateDrawIndexGameOver(int cell, int marker) {
+        if (cell == GameEngine.COVERED_MINE_CELL) return DRAW_MINE;
+        if (cell == GameEngine.MARKED_MINE_CELL) return marker == 0 ? DRAW_MARK_P1 : DRAW_MARK_P2;
+        if (cell >= GameEngine.MARKED_CELL && cell < GameEngine.MARKED_MINE_CELL) return marker == 0 ? DRAW_WRONG_MARK_P1 : DRAW_WRONG_MARK_P2;
+        if (cell > GameEngine.MINE_CELL) return DRAW_COVER;
         return cell;
     }
 
-    private BoardState analyzeBoardState() {
-        BoardState s = new BoardState();
-        s.totalSafeCells = allCells - mines;
-        for (int i = 0; i < allCells; i++) {
-            int cell = field[i];
-            int marker = markers[i];
-            if (cell >= 0 && cell <= 8) s.uncoveredSafeCells++;
-            else if (cell == MARKED_MINE_CELL) s.correctlyFlaggedMines++;
-            else if (cell >= 20 && cell <= 28 && marker != -1) s.hasWrongFlags = true;
-        }
-        return s;
-    }
-
     private void updateWinStatus() {
-        int p1 = playerFlags[0];
-        int p2 = playerFlags[1];
+        int p1 = engine.getPlayerFlags(0);
+        int p2 = engine.getPlayerFlags(1);
         
         String result;
         if (p1 > p2) {
@@ -269,32 +419,34 @@ class Board extends JPanel {
     }
 
     private void updateLossStatus() {
-        int loser = currentPlayer;
+        int loser = getCurrentPlayer();
         int winner = 1 - loser;
         statusbar.setText(PLAYER_PREFIX + (loser + 1) + HIT_A_MINE +
                          PLAYER_PREFIX + (winner + 1) + WINS);
     }
 
     void checkGameEnd() {
-        if (!inGame && !gameEndDetected) {
+        if (!isInGame() && !gameEndDetected) {
             gameEndDetected = true;
             String message;
 
-            if (gameWon) {
-                String p1f = String.format(FLAG_LINE_TEMPLATE, PLAYER_PREFIX + 1, playerFlags[0]);
-                String p2f = String.format(FLAG_LINE_TEMPLATE, PLAYER_PREFIX + 2, playerFlags[1]);
+            if (isGameWon()) {
+                int p1 = engine.getPlayerFlags(0);
+                int p2 = engine.getPlayerFlags(1);
+                String p1f = String.format(FLAG_LINE_TEMPLATE, PLAYER_PREFIX + 1, p1);
+                String p2f = String.format(FLAG_LINE_TEMPLATE, PLAYER_PREFIX + 2, p2);
 
                 String result;
-                if (playerFlags[0] > playerFlags[1]) {
+                if (p1 > p2) {
                     result = PLAYER_PREFIX + 1 + WINS;
-                } else if (playerFlags[1] > playerFlags[0]) {
+                } else if (p2 > p1) {
                     result = PLAYER_PREFIX + 2 + WINS;
                 } else {
                     result = "It's a draw!";
                 }
                 message = String.format(WIN_DRAW_MESSAGE_TEMPLATE, GAME_WON, p1f, p2f) + "\n" + result;
             } else {
-                int loser = currentPlayer;
+                int loser = getCurrentPlayer();
                 int winner = 1 - loser;
                 message = PLAYER_PREFIX + (loser + 1) + HIT_A_MINE + "\n" +
                           PLAYER_PREFIX + (winner + 1) + WINS;
@@ -304,39 +456,33 @@ class Board extends JPanel {
         }
     }
 
-    private static class BoardState {
-        int uncoveredSafeCells = 0;
-        int correctlyFlaggedMines = 0;
-        boolean hasWrongFlags = false;
-        int totalSafeCells = 0;
-    }
-
     // GETTERS & SETTERS
-    public static int getCoverForCell() { return COVER_FOR_CELL; }
-    public static int getCoveredMineCell() { return COVERED_MINE_CELL; }
-    public static int getMarkForCell() { return MARK_FOR_CELL; }
+    public static int getCoverForCell() { return GameEngine.COVER_FOR_CELL; }
+    public static int getCoveredMineCell() { return GameEngine.COVERED_MINE_CELL; }
+    public static int getMarkForCell() { return GameEngine.MARK_FOR_CELL; }
     public static int getDrawCover() { return DRAW_COVER; }
     public static int getDrawMarkP1() { return DRAW_MARK_P1; }
     public static int getDrawMine() { return DRAW_MINE; }
     public static int getDrawWrongMarkP2() { return DRAW_WRONG_MARK_P2; }
 
-    public int getCurrentPlayer() { return currentPlayer; }
-    public boolean isInGame() { return inGame; }
-    public int getMinesLeft() { return minesLeft; }
-    public int[] getPlayerFlags() { return playerFlags.clone(); }
-    public int[] getField() { return field.clone(); }
-    public int[] getMarkers() { return markers.clone(); }
-    public int getRows() { return rows; }
-    public int getCols() { return cols; }
-    public int getAllCells() { return allCells; }
-    public int getTotalMines() { return mines; }
-
-    public void setFieldForTesting(int[] testField) { this.field = testField.clone(); }
-    public void setInGame(boolean inGame) { this.inGame = inGame; }
-    public boolean isGameWon() { return gameWon; }
-    public void setGameWon(boolean gameWon) { this.gameWon = gameWon; }
-    public void setCurrentPlayer(int p) { this.currentPlayer = p; }
-    public void setMinesLeft(int minesLeft) { this.minesLeft = minesLeft; }
+    GameEngine getEngine() { return engine; }
+    public int getCurrentPlayer() { return engine.getCurrentPlayer(); }
+    public boolean isInGame() { return engine.isInGame(); }
+    public int getMinesLeft() { return engine.getMinesLeft(); }
+    public int[] getPlayerFlags() { return engine.getPlayerFlags(); }
+    public int[] getField() { return engine.getField(); }
+    public int[] getMarkers() { return engine.getMarkers(); }
+    public int getRows() { return engine.getRows(); }
+    public int getCols() { return engine.getCols(); }
+    public int getAllCells() { return engine.getAllCells(); }
+    public int getTotalMines() { return engine.getTotalMines(); }
+
+    public void setFieldForTesting(int[] testField) { engine.setFieldForTesting(testField); }
+    public void setInGame(boolean inGame) { engine.setInGame(inGame); }
+    public boolean isGameWon() { return engine.isGameWon(); }
+    public void setGameWon(boolean gameWon) { engine.setGameWon(gameWon); }
+    public void setCurrentPlayer(int p) { engine.setCurrentPlayer(p); }
+    public void setMinesLeft(int minesLeft) { engine.setMinesLeft(minesLeft); }
 
     public void simulateMousePress(MouseEvent e) {
         for (java.awt.event.MouseListener l : getMouseListeners()) {
@@ -347,64 +493,45 @@ class Board extends JPanel {
     class MinesAdapter extends MouseAdapter {
         @Override
         public void mousePressed(MouseEvent e) {
+            // inside the scroll pane the keys only reach a focused board
+            requestFocusInWindow();
             if (!isInGame()) {
                 newGame();
                 return;
             }
 
+            // Board coordinates already include the scroll offset
             int x = e.getX();
             int y = e.getY();
-            int cCol = x / CELL_SIZE;
-            int cRow = y / CELL_SIZE;
-            if (cRow < 0 || cCol < 0 || cRow >= rows || cCol >= cols) return;
+            int cCol = x / cellSize;
+            int cRow = y / cellSize;
+            if (!isValidCell(cRow, cCol)) return;
+
+            int pos = cRow * getCols() + cCol;
 
-            int pos = cRow * cols + cCol;
-            boolean repaintNeeded = false;
-            boolean validMove = false;
+            Object event = GameEvents.EVENTS.beginMove();
+            long start = Metrics.start();
+            int player = engine.getCurrentPlayer();
+            int uncovered = engine.getUncoveredSafeCells();
+            boolean moved;
 
+            // The engine's events schedule the repaint
             if (e.getButton() == MouseEvent.BUTTON3) {
-                if (field[pos] <= MINE_CELL) return;
-
-                boolean isFlagged = (field[pos] >= 20);
-
-                if (isFlagged) {
-                    if (markers[pos] == currentPlayer) {
-                        field[pos] -= MARK_FOR_CELL;
-                        markers[pos] = -1;
-                        playerFlags[currentPlayer]--;
-                        setMinesLeft(getMinesLeft() + 1);
-                        repaintNeeded = true;
-                    }
-                } else {
-                    if (field[pos] < 20) {
-                        field[pos] += MARK_FOR_CELL;
-                        markers[pos] = currentPlayer;
-                        playerFlags[currentPlayer]++;
-                        setMinesLeft(getMinesLeft() - 1);
-                        repaintNeeded = true;
-                    }
-                }
+                moved = engine.toggleFlag(pos);
             }
             else if (e.getButton() == MouseEvent.BUTTON1) {
-                if (field[pos] < COVER_FOR_CELL || field[pos] >= 20) return;
-
-                field[pos] -= COVER_FOR_CELL;
-                repaintNeeded = true;
-                validMove = true;
-
-                if (field[pos] == MINE_CELL) {
-                    setInGame(false);
-                    validMove = false;
-                } else if (field[pos] == EMPTY_CELL) {
-                    findEmptyCells(pos);
-                }
-
-                if (validMove && isInGame()) {
-                    setCurrentPlayer(1 - currentPlayer);
-                }
+                moved = engine.reveal(pos);
+            }
+            else {
+                return;
             }
 
-            if (repaintNeeded) repaint();
+            if (!moved) return;
+            Metrics.MOVE.recordSince(start);
+            Metrics.MOVES.increment();
+            GameEvents.EVENTS.endMove(event, getRows(), getCols(), cRow, cCol,
+                    e.getButton() == MouseEvent.BUTTON3 ? "flag" : "reveal", player,
+                    engine.getUncoveredSafeCells() - uncovered);
         }
     }
 }
\ No newline at end of file
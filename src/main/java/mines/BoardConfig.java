@@ -0,0 +1,68 @@
+package mines;
+
+// Board dimensions and mine count.
+//
+// An engine packs each cell into about 1 byte (see PackedCells): roughly
+// 10 MB for a 10,000,000-cell board. The flood-fill stack grows with the
+// largest region revealed, up to 4 more bytes per cell. Once a zero region
+// is opened, its cells are listed too (see ZeroRegions): 4 bytes per cell of
+// the board, plus 4 per cell opened through a region. newGame() is linear in
+// the cell count and reuses the storage when the size does not change.
+final class BoardConfig {
+
+    static final BoardConfig BEGINNER     = new BoardConfig(9, 9, 10);
+    static final BoardConfig INTERMEDIATE = new BoardConfig(16, 16, 40);
+    static final BoardConfig EXPERT       = new BoardConfig(16, 30, 99);
+
+    // Largest board whose arrays, plus the flood-fill stack's extra start
+    // slot, still fit in a Java array.
+    static final int MAX_CELLS = Integer.MAX_VALUE - 9;
+
+    private final int rows;
+    private final int cols;
+    private final int mines;
+
+    private BoardConfig(int rows, int cols, int mines) {
+        this.rows = rows;
+        this.cols = cols;
+        this.mines = mines;
+    }
+
+    static BoardConfig custom(int rows, int cols, int mines) {
+        if (rows < 1 || cols < 1) {
+            throw new IllegalArgumentException("Board needs at least one row and one column: " + rows + "x" + cols);
+        }
+        long cells = (long) rows * cols;
+        if (cells > MAX_CELLS) {
+            throw new IllegalArgumentException("Board too large: " + rows + "x" + cols);
+        }
+        if (mines < 0 || mines >= cells) {
+            throw new IllegalArgumentException("Mine count must be between 0 and " + (cells - 1) + ": " + mines);
+        }
+        return new BoardConfig(rows, cols, mines);
+    }
+
+    // Accepts a preset name ("beginner", "intermediate", "expert") or
+    // "<rows> <cols> <mines>"; anything else falls back to intermediate.
+    static BoardConfig fromArgs(String[] args) {
+        if (args == null || args.length == 0) return INTERMEDIATE;
+        if (args.length >= 3) {
+            return custom(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        }
+        switch (args[0].toLowerCase()) {
+            case "beginner": return BEGINNER;
+            case "expert":   return EXPERT;
+            default:         return INTERMEDIATE;
+        }
+    }
+
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public int getMines() { return mines; }
+    public int getAllCells() { return rows * cols; }
+
+    @Override
+    public String toString() {
+        return rows + "x" + cols + " (" + mines + " mines)";
+    }
+}
@@ -0,0 +1,227 @@
+package mines;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Drives one engine over stdin/stdout without AWT, for external bots, in
+// the spirit of UCI for chess engines: `java -jar mines.jar --bot`.
+//
+// Every command gets exactly one reply line, in order, so a client may send
+// any number of commands before reading. Replies are buffered and flushed
+// only when no more input is waiting, so a pipelined burst costs one write.
+// The bot plays both seats; moves are made for whoever's turn it is.
+//
+// Commands (one per line, cells are row * cols + col):
+//   NEW [rows cols mines [seed]] [NOGUESS]
+//                                 -> NEW <rows> <cols> <mines> <seed>, or
+//                                    ERR when no no-guess board was found
+//   REVEAL <pos> | FLAG <pos> | UNFLAG <pos>
+//                                 -> OK <status> <player to move>
+//   QUERY <pos> [<pos> ...]       -> CELLS <one symbol per pos>
+//   DIFF                          -> DIFF <n> <pos>:<symbol> ... changed since the last DIFF or NEW
+//   STATE                         -> STATE <status> <player> <minesLeft> <flags1> <flags2>
+//   BOARD                         -> BOARD <rows> <cols> <cells>
+//   PING                          -> PONG
+//   QUIT
+// Symbols are those of Match.board(); status is PLAYING, WON or LOST.
+// Errors are reported as "ERR <reason>".
+final class BotProtocol {
+
+    private final BufferedReader in;
+    private final Writer out;
+    private final GameEngine engine = new GameEngine();
+    private NoGuessGenerator noGuess;
+
+    // Symbols last sent to the client, for DIFF. The engine's dirty region
+    // bounds what may have changed since; nothing else consumes it here.
+    private char[] sent = new char[0];
+    private final StringBuilder reply = new StringBuilder(256);
+
+    BotProtocol(InputStream in, OutputStream out) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII), 1 << 16);
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII), 1 << 16);
+        resetDiff();
+    }
+
+    // Serves commands until QUIT or end of input.
+    void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line)) break;
+            if (!in.ready()) out.flush();
+        }
+        out.flush();
+    }
+
+    // Returns false on QUIT.
+    boolean handle(String line) throws IOException {
+        String[] parts = line.trim().split("\\s+");
+        String command = parts[0].toUpperCase();
+        reply.setLength(0);
+        try {
+            switch (command) {
+                case "NEW":
+                    newGame(parts);
+                    break;
+                case "REVEAL":
+                    move(Moves.REVEAL, parts);
+                    break;
+                case "FLAG":
+                    move(Moves.FLAG, parts);
+                    break;
+                case "UNFLAG":
+                    move(Moves.UNFLAG, parts);
+                    break;
+                case "QUERY":
+                    query(parts);
+                    break;
+                case "DIFF":
+                    diff();
+                    break;
+                case "STATE":
+                    reply.append("STATE ").append(status()).append(' ').append(engine.getCurrentPlayer())
+                         .append(' ').append(engine.getMinesLeft())
+                         .append(' ').append(engine.getPlayerFlags(0))
+                         .append(' ').append(engine.getPlayerFlags(1));
+                    break;
+                case "BOARD":
+                    board();
+                    break;
+                case "PING":
+                    reply.append("PONG");
+                    break;
+                case "QUIT":
+                    return false;
+                case "":
+                    return true;
+                default:
+                    error("unknown command " + parts[0]);
+            }
+        } catch (NumberFormatException e) {
+            error("bad arguments");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            error(e.getMessage());
+        }
+        out.append(reply).append('\n');
+        return true;
+    }
+
+    GameEngine getEngine() { return engine; }
+
+    // COMMANDS
+
+    private void newGame(String[] parts) {
+        boolean wantNoGuess = parts.length > 1 && "NOGUESS".equalsIgnoreCase(parts[parts.length - 1]);
+        if (wantNoGuess) parts = Arrays.copyOf(parts, parts.length - 1);
+
+        if (parts.length != 1 && parts.length != 4 && parts.length != 5) {
+            error("bad arguments");
+            return;
+        }
+        BoardConfig config = parts.length >= 4
+                ? BoardConfig.custom(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]))
+                : engine.getConfig();
+        long seed = parts.length == 5 ? Long.parseLong(parts[4]) : System.nanoTime();
+
+        if (wantNoGuess && noGuess == null) noGuess = new NoGuessGenerator();
+        boolean wasNoGuess = engine.isNoGuess();
+        engine.setNoGuess(wantNoGuess ? noGuess : null);
+        try {
+            engine.newGame(config, seed);
+        } catch (IllegalStateException e) {
+            // no board found; the current game goes on as it was
+            engine.setNoGuess(wasNoGuess ? noGuess : null);
+            throw e;
+        }
+        resetDiff();
+
+        reply.append("NEW ").append(engine.getRows()).append(' ').append(engine.getCols())
+             .append(' ').append(engine.getTotalMines()).append(' ').append(engine.getSeed());
+    }
+
+    private void move(int action, String[] parts) {
+        if (parts.length != 2) {
+            error("bad arguments");
+            return;
+        }
+        int pos = Integer.parseInt(parts[1]);
+        int result = engine.check(Moves.encode(pos, action, engine.getCurrentPlayer()));
+        if (result != Moves.APPLIED) {
+            error(result == Moves.GAME_OVER ? "game over" : "illegal move");
+            return;
+        }
+        engine.apply(Moves.encode(pos, action, engine.getCurrentPlayer()));
+        reply.append("OK ").append(status()).append(' ').append(engine.getCurrentPlayer());
+    }
+
+    private void query(String[] parts) {
+        if (parts.length < 2) {
+            error("bad arguments");
+            return;
+        }
+        reply.append("CELLS ");
+        for (int i = 1; i < parts.length; i++) {
+            int pos = Integer.parseInt(parts[i]);
+            if (!engine.isValidPosition(pos)) throw new IllegalArgumentException("no cell " + pos);
+            reply.append(Match.symbol(engine, pos));
+        }
+    }
+
+    // Scans only the dirty rectangle and reports cells whose symbol differs
+    // from what the client was last told.
+    private void diff() {
+        reply.append("DIFF ");
+        int countAt = reply.length();
+        int count = 0;
+        if (engine.hasDirtyRegion()) {
+            int cols = engine.getCols();
+            for (int row = engine.getDirtyMinRow(); row <= engine.getDirtyMaxRow(); row++) {
+                for (int col = engine.getDirtyMinCol(); col <= engine.getDirtyMaxCol(); col++) {
+                    int pos = row * cols + col;
+                    char symbol = Match.symbol(engine, pos);
+                    if (symbol == sent[pos]) continue;
+                    sent[pos] = symbol;
+                    reply.append(' ').append(pos).append(':').append(symbol);
+                    count++;
+                }
+            }
+            engine.clearDirtyRegion();
+        }
+        reply.insert(countAt, count);
+    }
+
+    private void board() {
+        int cells = engine.getAllCells();
+        reply.append("BOARD ").append(engine.getRows()).append(' ').append(engine.getCols()).append(' ');
+        for (int pos = 0; pos < cells; pos++) {
+            reply.append(Match.symbol(engine, pos));
+        }
+    }
+
+    // HELPERS
+
+    // The client starts out knowing an all-covered board; with no-guess the
+    // opening shows up in the first DIFF.
+    private void resetDiff() {
+        int cells = engine.getAllCells();
+        if (sent.length != cells) sent = new char[cells];
+        Arrays.fill(sent, '.');
+    }
+
+    private String status() {
+        return engine.isInGame() ? "PLAYING" : engine.isGameWon() ? "WON" : "LOST";
+    }
+
+    private void error(String reason) {
+        reply.setLength(0);
+        reply.append("ERR ").append(reason);
+    }
+}
@@ -0,0 +1,128 @@
+package mines;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Disk home of the chunks an EndlessWorld evicts: one file per chunk, named
+// <chunkRow>_<chunkCol>.chunk, holding the revealed and flag bit planes.
+// Mines and neighbour counts are not stored; the seed deals them again.
+// An instance reuses its buffer and is not thread-safe.
+final class ChunkStore {
+
+    // Every plane but the mines
+    private static final int FIRST_PLANE = 1;
+    private static final int STORED_PLANES = PackedCells.PLANES - FIRST_PLANE;
+
+    private final Path directory;
+    private final ByteBuffer buffer;
+    private boolean temporary;
+    private int writes;
+    private int reads;
+
+    ChunkStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        buffer = ByteBuffer.allocateDirect(STORED_PLANES * wordsPerPlane() * Long.BYTES);
+    }
+
+    // A store in a fresh temporary directory. It is deleted by deleteAll(),
+    // or when the JVM exits if that was never called.
+    static ChunkStore temporary() throws IOException {
+        ChunkStore store = new ChunkStore(Files.createTempDirectory("mines-chunks"));
+        store.temporary = true;
+        Temporary.STORES.add(store);
+        return store;
+    }
+
+    // The temporary stores still on disk. The first temporary() call loads
+    // this class and so installs the hook.
+    private static final class Temporary {
+        static final Set<ChunkStore> STORES = Collections.synchronizedSet(new HashSet<>());
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(Temporary::deleteAll, "mines-chunk-cleanup"));
+        }
+
+        private static void deleteAll() {
+            List<ChunkStore> stores;
+            synchronized (STORES) {
+                stores = new ArrayList<>(STORES);
+            }
+            for (ChunkStore store : stores) {
+                try {
+                    store.deleteAll();
+                } catch (IOException e) {
+                    // nothing left to do at exit; the system cleans its temp directory
+                }
+            }
+        }
+    }
+
+    Path getDirectory() { return directory; }
+
+    void write(int chunkRow, int chunkCol, PackedCells cells) throws IOException {
+        buffer.clear();
+        for (int plane = FIRST_PLANE; plane < PackedCells.PLANES; plane++) {
+            for (long word : cells.plane(plane)) buffer.putLong(word);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file(chunkRow, chunkCol), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+        writes++;
+    }
+
+    // Fills in the stored planes of the chunk; false, touching nothing, when
+    // the chunk was never stored.
+    boolean read(int chunkRow, int chunkCol, PackedCells cells) throws IOException {
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(file(chunkRow, chunkCol), StandardOpenOption.READ)) {
+            if (channel.size() != buffer.capacity()) {
+                throw new IOException("Corrupt chunk " + chunkRow + "," + chunkCol);
+            }
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) throw new IOException("Truncated chunk " + chunkRow + "," + chunkCol);
+            }
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        buffer.flip();
+        for (int plane = FIRST_PLANE; plane < PackedCells.PLANES; plane++) {
+            long[] words = cells.plane(plane);
+            for (int i = 0; i < words.length; i++) words[i] = buffer.getLong();
+        }
+        reads++;
+        return true;
+    }
+
+    // Removes every stored chunk and the directory itself.
+    void deleteAll() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.chunk")) {
+            for (Path file : files) Files.delete(file);
+        }
+        Files.deleteIfExists(directory);
+        if (temporary) Temporary.STORES.remove(this);
+    }
+
+    int writes() { return writes; }
+    int reads() { return reads; }
+
+    private Path file(int chunkRow, int chunkCol) {
+        return directory.resolve(chunkRow + "_" + chunkCol + ".chunk");
+    }
+
+    private static int wordsPerPlane() {
+        return (EndlessWorld.CHUNK_CELLS + 63) >>> 6;
+    }
+}
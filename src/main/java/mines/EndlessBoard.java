@@ -0,0 +1,195 @@
+package mines;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+
+// View of an EndlessWorld: a fixed window of cells over a movable origin.
+// The arrow keys scroll a cell at a time, or a chunk with Shift; clicks
+// play as on a Board, and a click after the game ends deals a new world.
+class EndlessBoard extends JPanel {
+
+    private static final long serialVersionUID = -3542208829372925017L;
+    static final int VIEW_ROWS = 32;
+    static final int VIEW_COLS = 48;
+
+    private static final String PLAYER_PREFIX = "Player ";
+
+    private transient SpriteAtlas atlas;
+    private final int cellSize = Board.DEFAULT_CELL_SIZE;
+
+    private final JLabel statusbar;
+    private transient EndlessWorld world;
+
+    // World cell shown in the top left corner
+    private int topRow = -VIEW_ROWS / 2;
+    private int leftCol = -VIEW_COLS / 2;
+
+    EndlessBoard(JLabel statusbar, EndlessWorld world) {
+        this.statusbar = statusbar;
+        this.world = world;
+        this.atlas = SpriteAtlas.forSize(cellSize);
+
+        setPreferredSize(new Dimension(VIEW_COLS * cellSize, VIEW_ROWS * cellSize));
+        addMouseListener(new EndlessAdapter());
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                int step = e.isShiftDown() ? EndlessWorld.CHUNK : 1;
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_UP:    scrollBy(-step, 0); break;
+                    case KeyEvent.VK_DOWN:  scrollBy(step, 0);  break;
+                    case KeyEvent.VK_LEFT:  scrollBy(0, -step); break;
+                    case KeyEvent.VK_RIGHT: scrollBy(0, step);  break;
+                    default: break;
+                }
+            }
+        });
+        setFocusable(true);
+        updateStatus();
+    }
+
+    // A world over a fresh temporary store, which is deleted again when the
+    // next world replaces it.
+    static EndlessWorld newWorld(long seed) {
+        try {
+            return new EndlessWorld(seed, EndlessWorld.DEFAULT_DENSITY, EndlessWorld.DEFAULT_MAX_BYTES,
+                    ChunkStore.temporary());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    EndlessWorld getWorld() { return world; }
+    int getTopRow() { return topRow; }
+    int getLeftCol() { return leftCol; }
+
+    void scrollBy(int rows, int cols) {
+        topRow += rows;
+        leftCol += cols;
+        world.clearDirtyRegion();  // everything is repainted anyway
+        repaint();
+    }
+
+    void newWorld() {
+        try {
+            world.getStore().deleteAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        world = newWorld(ThreadLocalRandom.current().nextLong());
+        topRow = -VIEW_ROWS / 2;
+        leftCol = -VIEW_COLS / 2;
+        updateStatus();
+        repaint();
+    }
+
+    // PAINTING
+
+    // Draws the cells that intersect the clip, reading neighbouring chunks
+    // as needed; only the chunks in view need to be cached.
+    @Override
+    public void paint(Graphics g) {
+        Object event = GameEvents.EVENTS.beginPaint();
+        long start = Metrics.start();
+        int firstRow = 0;
+        int lastRow = VIEW_ROWS - 1;
+        int firstCol = 0;
+        int lastCol = VIEW_COLS - 1;
+        Rectangle clip = g.getClipBounds();
+        if (clip != null) {
+            firstRow = Math.max(0, clip.y / cellSize);
+            lastRow = Math.min(VIEW_ROWS - 1, (clip.y + clip.height - 1) / cellSize);
+            firstCol = Math.max(0, clip.x / cellSize);
+            lastCol = Math.min(VIEW_COLS - 1, (clip.x + clip.width - 1) / cellSize);
+        }
+
+        boolean inGame = world.isInGame();
+        for (int i = firstRow; i <= lastRow; i++) {
+            for (int j = firstCol; j <= lastCol; j++) {
+                int cell = world.cellAt(topRow + i, leftCol + j);
+                int marker = world.markerAt(topRow + i, leftCol + j);
+                int drawIndex = inGame ? Board.calculateDrawIndexInGame(cell, marker)
+                                       : Board.calculateDrawIndexGameOver(cell, marker);
+                atlas.draw(g, drawIndex, j * cellSize, i * cellSize);
+            }
+        }
+        Metrics.PAINT.recordSince(start);
+        GameEvents.EVENTS.endPaint(event, 0, 0, cellSize,
+                Math.max(0, lastRow - firstRow + 1) * Math.max(0, lastCol - firstCol + 1));
+    }
+
+    // Repaints the part of the dirty region that is in view.
+    private void repaintDirtyRegion() {
+        if (!world.hasDirtyRegion()) return;
+        long firstRow = Math.max(0L, (long) world.getDirtyMinRow() - topRow);
+        long lastRow = Math.min(VIEW_ROWS - 1L, (long) world.getDirtyMaxRow() - topRow);
+        long firstCol = Math.max(0L, (long) world.getDirtyMinCol() - leftCol);
+        long lastCol = Math.min(VIEW_COLS - 1L, (long) world.getDirtyMaxCol() - leftCol);
+        world.clearDirtyRegion();
+        if (firstRow > lastRow || firstCol > lastCol) return;
+        repaint((int) firstCol * cellSize, (int) firstRow * cellSize,
+                (int) (lastCol - firstCol + 1) * cellSize, (int) (lastRow - firstRow + 1) * cellSize);
+    }
+
+    private void updateStatus() {
+        if (world.isInGame()) {
+            statusbar.setText(PLAYER_PREFIX + (world.getCurrentPlayer() + 1) + "'s turn | Uncovered: "
+                    + world.getUncoveredSafeCells() + " | Flags: P1=" + world.getPlayerFlags(0)
+                    + " P2=" + world.getPlayerFlags(1));
+        } else {
+            int loser = world.getCurrentPlayer();
+            statusbar.setText(PLAYER_PREFIX + (loser + 1) + " hit a mine! " + PLAYER_PREFIX + (2 - loser) + " wins!");
+        }
+    }
+
+    class EndlessAdapter extends MouseAdapter {
+        @Override
+        public void mousePressed(MouseEvent e) {
+            requestFocusInWindow();
+            if (!world.isInGame()) {
+                newWorld();
+                return;
+            }
+            int row = topRow + e.getY() / cellSize;
+            int col = leftCol + e.getX() / cellSize;
+
+            Object event = GameEvents.EVENTS.beginMove();
+            long start = Metrics.start();
+            int player = world.getCurrentPlayer();
+            long uncovered = world.getUncoveredSafeCells();
+            boolean moved;
+            if (e.getButton() == MouseEvent.BUTTON3) {
+                moved = world.toggleFlag(row, col);
+            } else if (e.getButton() == MouseEvent.BUTTON1) {
+                moved = world.reveal(row, col);
+            } else {
+                return;
+            }
+            if (!moved) return;
+            Metrics.MOVE.recordSince(start);
+            Metrics.MOVES.increment();
+            GameEvents.EVENTS.endMove(event, 0, 0, row, col,
+                    e.getButton() == MouseEvent.BUTTON3 ? "flag" : "reveal", player,
+                    (int) (world.getUncoveredSafeCells() - uncovered));
+
+            if (world.isInGame()) {
+                repaintDirtyRegion();
+            } else {
+                world.clearDirtyRegion();
+                repaint();  // every mine in view is shown now
+            }
+            updateStatus();
+        }
+    }
+}
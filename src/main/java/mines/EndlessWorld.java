@@ -0,0 +1,356 @@
+package mines;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+// Rules and state of an endless two-player game, the --endless counterpart
+// of GameEngine. Cells are addressed by (row, col) anywhere in int range.
+//
+// The world is cut into CHUNK x CHUNK chunks, each dealt from the seed and
+// its own coordinates when first touched, so any chunk can be dealt again
+// at any time and comes out the same. At most maxBytes of chunks are kept
+// in memory; the least recently used one is dropped beyond that, after
+// its revealed and flag planes are written to the ChunkStore if they
+// changed since it was loaded. Memory therefore stays flat however far the
+// players go.
+//
+// The origin and its neighbours are never mines, so the game opens at
+// (0, 0). There is no win: the game ends when someone reveals a mine.
+// Not thread-safe.
+final class EndlessWorld {
+
+    static final int CHUNK_BITS = 5;
+    static final int CHUNK = 1 << CHUNK_BITS;
+    static final int CHUNK_CELLS = CHUNK * CHUNK;
+    private static final int CHUNK_MASK = CHUNK - 1;
+
+    // A cell is a zero with chance (1 - density)^9. Near a density of 0.095
+    // that reaches 0.41, where touching zeros start to form endless regions
+    // and a single reveal could flood forever. At 0.12 it is 0.32, far
+    // enough below that regions stay small.
+    static final double MIN_DENSITY = 0.12;
+    static final double MAX_DENSITY = 0.9;
+    static final double DEFAULT_DENSITY = 40 / 256.0;
+
+    // Rough heap per cached chunk: five bit planes, the packed counts, and
+    // the chunk and map entry around them.
+    static final int CHUNK_BYTES = 5 * CHUNK_CELLS / 8 + CHUNK_CELLS / 2 + 128;
+    static final long DEFAULT_MAX_BYTES = 4L << 20;
+    // Enough for a 3x3 block of chunks around any cell, plus slack.
+    private static final int MIN_CHUNKS = 16;
+
+    private static final int INITIAL_FLOOD_STACK = 1024;
+
+    private final long seed;
+    private final double density;
+    private final int minesPerChunk;
+    private final int maxChunks;
+    private final ChunkStore store;
+    private final SplitMixRandom random = new SplitMixRandom();
+
+    // Access-ordered, least recently used first. `last` short-cuts the map
+    // for runs of lookups in one chunk, which is nearly all of them.
+    private final LinkedHashMap<Long, Chunk> chunks = new LinkedHashMap<>(64, 0.75f, true);
+    private Chunk last;
+
+    private boolean inGame = true;
+    private int currentPlayer;
+    private final int[] playerFlags = new int[2];
+    private long uncoveredSafeCells;
+
+    private long[] floodStack = new long[INITIAL_FLOOD_STACK];
+
+    // Bounding box of the cells changed since the view last called
+    // clearDirtyRegion(); empty when dirtyMinRow > dirtyMaxRow.
+    private int dirtyMinRow = Integer.MAX_VALUE;
+    private int dirtyMaxRow = Integer.MIN_VALUE;
+    private int dirtyMinCol = Integer.MAX_VALUE;
+    private int dirtyMaxCol = Integer.MIN_VALUE;
+
+    EndlessWorld(long seed, double density, long maxBytes, ChunkStore store) {
+        if (!(density >= MIN_DENSITY && density <= MAX_DENSITY)) {
+            throw new IllegalArgumentException("Density must be between " + MIN_DENSITY + " and " + MAX_DENSITY + ": " + density);
+        }
+        this.seed = seed;
+        this.density = density;
+        this.minesPerChunk = (int) Math.round(density * CHUNK_CELLS);
+        this.maxChunks = (int) Math.max(MIN_CHUNKS, Math.min(Integer.MAX_VALUE, maxBytes / CHUNK_BYTES));
+        this.store = store;
+    }
+
+    static final class Chunk {
+        final int chunkRow;
+        final int chunkCol;
+        final PackedCells cells = new PackedCells(CHUNK_CELLS);
+        // Moves the store has not seen yet; the seed cannot bring them back
+        boolean unsaved;
+
+        Chunk(int chunkRow, int chunkCol) {
+            this.chunkRow = chunkRow;
+            this.chunkCol = chunkCol;
+        }
+    }
+
+    // CHUNKS
+
+    private static long key(int chunkRow, int chunkCol) {
+        return ((long) chunkRow << 32) | (chunkCol & 0xFFFFFFFFL);
+    }
+
+    private static int index(int row, int col) {
+        return ((row & CHUNK_MASK) << CHUNK_BITS) | (col & CHUNK_MASK);
+    }
+
+    // The chunk holding the cell: cached, reloaded from the store, or dealt.
+    Chunk chunkAt(int row, int col) {
+        int chunkRow = row >> CHUNK_BITS;
+        int chunkCol = col >> CHUNK_BITS;
+        Chunk chunk = last;
+        if (chunk != null && chunk.chunkRow == chunkRow && chunk.chunkCol == chunkCol) return chunk;
+
+        Long key = key(chunkRow, chunkCol);
+        chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = load(chunkRow, chunkCol);
+            chunks.put(key, chunk);
+            evict();
+        }
+        return last = chunk;
+    }
+
+    private Chunk load(int chunkRow, int chunkCol) {
+        Chunk chunk = new Chunk(chunkRow, chunkCol);
+        deal(chunk);
+        try {
+            store.read(chunkRow, chunkCol, chunk.cells);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return chunk;
+    }
+
+    // Floyd's sampling, as in GameEngine, from a generator seeded by the
+    // world seed and the chunk coordinates.
+    private void deal(Chunk chunk) {
+        random.setSeed(seed ^ key(chunk.chunkRow, chunk.chunkCol) * 0x9E3779B97F4A7C15L);
+        PackedCells cells = chunk.cells;
+        for (int j = CHUNK_CELLS - minesPerChunk; j < CHUNK_CELLS; j++) {
+            int pos = random.nextInt(j + 1);
+            if (cells.isMine(pos)) pos = j;
+            cells.setMine(pos, true);
+        }
+        // the opening around the origin
+        if ((chunk.chunkRow == 0 || chunk.chunkRow == -1) && (chunk.chunkCol == 0 || chunk.chunkCol == -1)) {
+            for (int row = -1; row <= 1; row++) {
+                for (int col = -1; col <= 1; col++) {
+                    if (row >> CHUNK_BITS == chunk.chunkRow && col >> CHUNK_BITS == chunk.chunkCol) {
+                        cells.setMine(index(row, col), false);
+                    }
+                }
+            }
+        }
+    }
+
+    private void evict() {
+        Iterator<Chunk> eldest = chunks.values().iterator();
+        while (chunks.size() > maxChunks) {
+            Chunk chunk = eldest.next();
+            if (chunk.unsaved) {
+                try {
+                    store.write(chunk.chunkRow, chunk.chunkCol, chunk.cells);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            eldest.remove();
+        }
+    }
+
+    int cachedChunks() { return chunks.size(); }
+    int maxChunks() { return maxChunks; }
+    ChunkStore getStore() { return store; }
+
+    // CELLS
+
+    public boolean isMine(int row, int col) {
+        return chunkAt(row, col).cells.isMine(index(row, col));
+    }
+
+    public boolean isRevealed(int row, int col) {
+        return chunkAt(row, col).cells.isRevealed(index(row, col));
+    }
+
+    // Player who flagged the cell, or GameEngine.NO_PLAYER.
+    public int flagOwner(int row, int col) {
+        return chunkAt(row, col).cells.flagOwner(index(row, col));
+    }
+
+    // Neighbour count, computed on first use and kept with the chunk;
+    // neighbours across a chunk edge come from the chunk next door.
+    public int neighborMines(int row, int col) {
+        PackedCells cells = chunkAt(row, col).cells;
+        int pos = index(row, col);
+        if (!cells.isCounted(pos)) {
+            int count = 0;
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if ((dr != 0 || dc != 0) && isMine(row + dr, col + dc)) count++;
+                }
+            }
+            // still cached: it is among the four chunks used last, and at
+            // least MIN_CHUNKS are kept
+            cells.setCount(pos, count);
+        }
+        return cells.count(pos);
+    }
+
+    // Legacy field encoding, as GameEngine.cellAt().
+    int cellAt(int row, int col) {
+        PackedCells cells = chunkAt(row, col).cells;
+        int pos = index(row, col);
+        int value = cells.isMine(pos) ? GameEngine.MINE_CELL : neighborMines(row, col);
+        if (cells.isRevealed(pos)) return value;
+        return cells.isFlagged(pos)
+                ? value + GameEngine.COVER_FOR_CELL + GameEngine.MARK_FOR_CELL
+                : value + GameEngine.COVER_FOR_CELL;
+    }
+
+    int markerAt(int row, int col) { return flagOwner(row, col); }
+
+    // MOVES
+    // As in GameEngine: a reveal passes the turn, flags do not, and each
+    // move returns true when it changed the board.
+
+    public boolean reveal(int row, int col) {
+        if (!inGame) return false;
+        Chunk chunk = chunkAt(row, col);
+        int pos = index(row, col);
+        if (chunk.cells.isRevealed(pos) || chunk.cells.isFlagged(pos)) return false;
+
+        chunk.cells.setRevealed(pos, true);
+        chunk.unsaved = true;
+        markDirty(row, col);
+        if (chunk.cells.isMine(pos)) {
+            inGame = false;
+            return true;
+        }
+        uncoveredSafeCells++;
+        if (neighborMines(row, col) == GameEngine.EMPTY_CELL) findEmptyCells(row, col);
+        currentPlayer = 1 - currentPlayer;
+        return true;
+    }
+
+    public boolean flag(int row, int col) {
+        if (!inGame) return false;
+        Chunk chunk = chunkAt(row, col);
+        int pos = index(row, col);
+        if (chunk.cells.isRevealed(pos) || chunk.cells.isFlagged(pos)) return false;
+
+        chunk.cells.setFlag(pos, currentPlayer);
+        chunk.unsaved = true;
+        markDirty(row, col);
+        playerFlags[currentPlayer]++;
+        return true;
+    }
+
+    public boolean unflag(int row, int col) {
+        if (!inGame) return false;
+        Chunk chunk = chunkAt(row, col);
+        int pos = index(row, col);
+        if (chunk.cells.flagOwner(pos) != currentPlayer) return false;
+
+        chunk.cells.clearFlag(pos);
+        chunk.unsaved = true;
+        markDirty(row, col);
+        playerFlags[currentPlayer]--;
+        return true;
+    }
+
+    public boolean toggleFlag(int row, int col) {
+        return flagOwner(row, col) == GameEngine.NO_PLAYER ? flag(row, col) : unflag(row, col);
+    }
+
+    // Uncovers the region around an empty cell, as GameEngine.findEmptyCells()
+    // does, with cells packed into longs on the stack. Chunks are looked up
+    // per cell, so the fill crosses chunk edges and survives evictions on
+    // the way. Returns the number of cells uncovered besides the start cell.
+    public int findEmptyCells(int row, int col) {
+        Object event = GameEvents.EVENTS.beginFloodFill();
+        long start = Metrics.start();
+        long[] stack = floodStack;
+        int top = 0;
+        int revealed = 0;
+        stack[top++] = pack(row, col);
+
+        while (top > 0) {
+            long p = stack[--top];
+            int r = (int) (p >> 32);
+            int c = (int) p;
+
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dr == 0 && dc == 0) continue;
+
+                    int nr = r + dr;
+                    int nc = c + dc;
+                    Chunk chunk = chunkAt(nr, nc);
+                    int np = index(nr, nc);
+                    if (chunk.cells.isRevealed(np) || chunk.cells.isFlagged(np)) continue;
+
+                    chunk.cells.setRevealed(np, true);
+                    chunk.unsaved = true;
+                    markDirty(nr, nc);
+                    revealed++;
+                    if (chunk.cells.isMine(np)) continue;
+
+                    uncoveredSafeCells++;
+                    if (neighborMines(nr, nc) == GameEngine.EMPTY_CELL) {
+                        if (top == stack.length) stack = floodStack = Arrays.copyOf(stack, stack.length * 2);
+                        stack[top++] = pack(nr, nc);
+                    }
+                }
+            }
+        }
+
+        Metrics.FLOOD_FILL.recordSince(start);
+        Metrics.CELLS_FLOODED.add(revealed);
+        GameEvents.EVENTS.endFloodFill(event, 0, 0, row, col, revealed);
+        return revealed;
+    }
+
+    private static long pack(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    // DIRTY REGION
+
+    private void markDirty(int row, int col) {
+        if (row < dirtyMinRow) dirtyMinRow = row;
+        if (row > dirtyMaxRow) dirtyMaxRow = row;
+        if (col < dirtyMinCol) dirtyMinCol = col;
+        if (col > dirtyMaxCol) dirtyMaxCol = col;
+    }
+
+    public boolean hasDirtyRegion() { return dirtyMinRow <= dirtyMaxRow; }
+    public int getDirtyMinRow() { return dirtyMinRow; }
+    public int getDirtyMaxRow() { return dirtyMaxRow; }
+    public int getDirtyMinCol() { return dirtyMinCol; }
+    public int getDirtyMaxCol() { return dirtyMaxCol; }
+
+    public void clearDirtyRegion() {
+        dirtyMinRow = dirtyMinCol = Integer.MAX_VALUE;
+        dirtyMaxRow = dirtyMaxCol = Integer.MIN_VALUE;
+    }
+
+    // GETTERS
+
+    public long getSeed() { return seed; }
+    public double getDensity() { return density; }
+    public boolean isInGame() { return inGame; }
+    public int getCurrentPlayer() { return currentPlayer; }
+    public int getPlayerFlags(int player) { return playerFlags[player]; }
+    public long getUncoveredSafeCells() { return uncoveredSafeCells; }
+}
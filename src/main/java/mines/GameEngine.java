@@ -0,0 +1,943 @@
+package mines;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Rules and state of a two-player game, independent of any AWT/Swing code.
+class GameEngine {
+
+    static final int COVER_FOR_CELL = 10;
+    static final int MARK_FOR_CELL   = 10;
+    static final int EMPTY_CELL      = 0;
+    static final int MINE_CELL       = 9;
+    static final int COVERED_MINE_CELL = MINE_CELL + COVER_FOR_CELL; // 19
+    static final int MARKED_MINE_CELL  = COVERED_MINE_CELL + MARK_FOR_CELL; // 29
+    static final int MARKED_CELL       = COVER_FOR_CELL + MARK_FOR_CELL; // 20
+
+    static final int NO_PLAYER = -1;
+
+    // Initial capacity of the flood-fill stack; it doubles on demand up to
+    // allCells + 1 and is then reused by every later fill.
+    private static final int INITIAL_FLOOD_STACK = 1024;
+
+    private PackedCells cells;
+    private boolean inGame;
+    private boolean gameWon;
+    private int minesLeft;
+
+    private BoardConfig config;
+    private int mines;
+    private int rows;
+    private int cols;
+    private int allCells;
+
+    private int[] floodStack = new int[INITIAL_FLOOD_STACK];
+
+    // Each zero region is listed on the first reveal that opens it, and the
+    // lists are dropped whenever mines or counts change.
+    private final ZeroRegions zeroRegions = new ZeroRegions();
+
+    // Kept up to date by every move so that checkWin() is O(1).
+    private int uncoveredSafeCells;
+    private int correctlyFlaggedMines;
+    private int wrongFlags;
+
+    // Bounding box, in rows and columns, of the cells changed since the view
+    // last called clearDirtyRegion(). Empty when dirtyMinRow > dirtyMaxRow.
+    private int dirtyMinRow;
+    private int dirtyMaxRow;
+    private int dirtyMinCol;
+    private int dirtyMaxCol;
+
+    // Placement PRNG, reseeded for every game. Any Random works; pass a
+    // SecureRandom for competitive play, where boards must not be predictable.
+    private final Random random;
+    private long seed;
+
+    private int currentPlayer = 0;
+    private final int[] playerFlags = new int[2];
+
+    private MoveJournal journal;
+    private MoveHistory history;
+
+    // Set for no-guess games; `opened` tells whether the deal uncovered the
+    // opening area.
+    private NoGuessGenerator noGuess;
+    private boolean opened;
+
+    // Mines are placed on the first reveal, away from the revealed cell, so
+    // dealing a game does no per-mine work and the first click is safe. It
+    // still clears the cell storage, about a byte per cell, so a new game is
+    // a fill over the board rather than constant time.
+    // Without firstClickSafe the seed alone fixes the board, whatever is
+    // played, as tournaments and replays of old games need.
+    private boolean minesPlaced;
+    private boolean firstClickSafe = true;
+
+    // Copied on change, so firing is a plain array walk.
+    private GameListener[] listeners = NO_LISTENERS;
+    private static final GameListener[] NO_LISTENERS = new GameListener[0];
+
+    // While `logging`, every cell change is appended here, Moves-encoded, so
+    // that it can be undone: REVEAL for a cell uncovered, FLAG/UNFLAG with the
+    // flag's owner.
+    private boolean logging;
+    private long[] changeLog = new long[64];
+    private int changeCount;
+
+    GameEngine() {
+        this(BoardConfig.INTERMEDIATE);
+    }
+
+    GameEngine(BoardConfig config) {
+        this(config, new SplitMixRandom());
+    }
+
+    GameEngine(BoardConfig config, Random random) {
+        this.config = config;
+        this.random = random;
+        newGame();
+    }
+
+    public void newGame(BoardConfig config) {
+        newGame(config, ThreadLocalRandom.current().nextLong());
+    }
+
+    public void newGame() {
+        newGame(ThreadLocalRandom.current().nextLong());
+    }
+
+    public void newGame(long seed) {
+        newGame(config, seed);
+    }
+
+    // Same config and seed give the same board with the default generator.
+    // A SecureRandom is never reseeded, so its boards cannot be reproduced.
+    // In no-guess mode the seed only starts the search; getSeed() returns the
+    // seed of the board actually dealt. When the search finds no board within
+    // its budget, throws IllegalStateException and keeps the current game.
+    public void newGame(BoardConfig config, long seed) {
+        Object event = GameEvents.EVENTS.beginNewGame();
+        long start = Metrics.start();
+        if (noGuess != null) {
+            OptionalLong found = noGuess.find(config, seed);
+            if (!found.isPresent()) {
+                throw new IllegalStateException("no no-guess board found");
+            }
+            dealGame(config, found.getAsLong(), true);
+        } else {
+            dealGame(config, seed, false);
+        }
+        Metrics.NEW_GAME.recordSince(start);
+        Metrics.GAMES.increment();
+        GameEvents.EVENTS.endNewGame(event, rows, cols, mines, noGuess != null, this.seed);
+    }
+
+    // Deals the board for `seed` and, with `open`, uncovers the opening area
+    // as part of the deal rather than as anyone's move.
+    void dealGame(BoardConfig config, long seed, boolean open) {
+        dealGame(config, seed, open, firstClickSafe);
+    }
+
+    void dealGame(BoardConfig config, long seed, boolean open, boolean firstClickSafe) {
+        this.firstClickSafe = firstClickSafe;
+        this.config = config;
+        this.seed = seed;
+        if (!(random instanceof SecureRandom)) {
+            random.setSeed(seed);
+        }
+        initializeBoard();
+        if (open || !firstClickSafe) placeMines(-1);
+        opened = open && openStart();
+        if (history != null) history.clear();
+        if (journal != null) {
+            journal.start(config, seed, opened, firstClickSafe);
+        }
+        for (GameListener l : listeners) l.gameStarted(this);
+    }
+
+    // Uncovers the zero cell closest to the centre, which is where no-guess
+    // boards are verified from. Returns false when the board has no zero.
+    private boolean openStart() {
+        int pos = findOpening();
+        if (pos < 0) return false;
+        cells.setRevealed(pos, true);
+        markDirty(pos);
+        uncoveredSafeCells++;
+        findEmptyCells(pos);
+        return true;
+    }
+
+    int findOpening() {
+        int best = -1;
+        long bestDistance = Long.MAX_VALUE;
+        for (int pos = 0; pos < allCells; pos++) {
+            if (cells.isMine(pos) || neighborMines(pos) != EMPTY_CELL) continue;
+            long dr = 2L * (pos / cols) - (rows - 1);
+            long dc = 2L * (pos % cols) - (cols - 1);
+            long distance = dr * dr + dc * dc;
+            if (distance < bestDistance) {
+                best = pos;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    private void initializeBoard() {
+        inGame = true;
+        gameWon = false;
+        mines = config.getMines();
+        rows = config.getRows();
+        cols = config.getCols();
+        allCells = config.getAllCells();
+        minesLeft = mines;
+
+        if (cells == null || cells.size() != allCells) {
+            cells = new PackedCells(allCells);
+        } else {
+            cells.clear();
+        }
+
+        playerFlags[0] = playerFlags[1] = 0;
+        currentPlayer = 0;
+        uncoveredSafeCells = 0;
+        correctlyFlaggedMines = 0;
+        wrongFlags = 0;
+        minesPlaced = false;
+        zeroRegions.invalidate();
+        markAllDirty();
+    }
+
+    // Places the mines away from `safePos` and its neighbours, or only away
+    // from `safePos` when the board is too dense for that; -1 places them
+    // anywhere. Flags made before this are re-scored against the mines.
+    private void placeMines(int safePos) {
+        int[] excluded = excludedCells(safePos);
+        placeMinesRandomly(excluded);
+        minesPlaced = true;
+        zeroRegions.invalidate();
+        correctlyFlaggedMines = cells.countFlaggedMines();
+        wrongFlags = cells.countFlaggedSafe();
+    }
+
+    // Takes back placeMines(). The generator is reseeded, so the next reveal
+    // deals what a replay of the journal, which no longer has this reveal,
+    // would deal.
+    private void unplaceMines() {
+        cells.clearMines();
+        minesPlaced = false;
+        zeroRegions.invalidate();
+        if (!(random instanceof SecureRandom)) random.setSeed(seed);
+        correctlyFlaggedMines = 0;
+        wrongFlags = cells.countFlaggedSafe();
+    }
+
+    private int[] excludedCells(int safePos) {
+        if (safePos < 0) return new int[0];
+        int row = safePos / cols;
+        int col = safePos % cols;
+        int[] around = new int[9];
+        int n = 0;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                if (isValidCell(row + dr, col + dc)) around[n++] = (row + dr) * cols + col + dc;
+            }
+        }
+        // ascending already, as rows and then columns go up
+        return allCells - n >= mines ? Arrays.copyOf(around, n) : new int[] {safePos};
+    }
+
+    // Floyd's sampling without replacement: exactly one draw per mine, so
+    // placement is O(mines) at any density instead of retrying collisions.
+    // Draws are over the cells that are not excluded, mapped back to
+    // positions by stepping over the (sorted) exclusions.
+    private void placeMinesRandomly(int[] excluded) {
+        int candidates = allCells - excluded.length;
+        for (int j = candidates - mines; j < candidates; j++) {
+            int pos = skipExcluded(random.nextInt(j + 1), excluded);
+            if (cells.isMine(pos)) {
+                pos = skipExcluded(j, excluded);
+            }
+            cells.setMine(pos, true);
+        }
+    }
+
+    private static int skipExcluded(int index, int[] excluded) {
+        int pos = index;
+        for (int e : excluded) {
+            if (e <= pos) pos++;
+        }
+        return pos;
+    }
+
+    public boolean areMinesPlaced() { return minesPlaced; }
+
+    public boolean isFirstClickSafe() { return firstClickSafe; }
+
+    // Turning it off deals the current game's mines now if no reveal has.
+    public void setFirstClickSafe(boolean firstClickSafe) {
+        this.firstClickSafe = firstClickSafe;
+        if (!firstClickSafe && !minesPlaced) placeMines(-1);
+    }
+
+    // Neighbour count of a cell, computed on first use and then kept. Every
+    // cell reads 0 until the mines are placed, and nothing is kept until then.
+    public int neighborMines(int pos) {
+        if (!minesPlaced) return 0;
+        if (!cells.isCounted(pos)) cells.setCount(pos, countNeighborMines(pos));
+        return cells.count(pos);
+    }
+
+    private int countNeighborMines(int pos) {
+        int row = pos / cols;
+        int col = pos % cols;
+        int count = 0;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                if ((dr != 0 || dc != 0) && isValidCell(row + dr, col + dc)
+                        && cells.isMine((row + dr) * cols + col + dc)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    public void incrementNeighbors(int minePos) {
+        zeroRegions.invalidate();
+        int row = minePos / cols;
+        int col = minePos % cols;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                if (dr == 0 && dc == 0) continue;
+                int nr = row + dr;
+                int nc = col + dc;
+                if (isValidCell(nr, nc)) {
+                    int np = nr * cols + nc;
+                    if (!cells.isMine(np)) {
+                        cells.incrementCount(np);
+                    }
+                }
+            }
+        }
+    }
+
+    public boolean isValidCell(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols;
+    }
+
+    // Reveals the region around `pos`, not counting `pos` itself. Regions
+    // come from the ZeroRegions index when it applies, so that only the
+    // cells uncovered are visited; see revealRegion().
+    public int findEmptyCells(int pos) {
+        Object event = GameEvents.EVENTS.beginFloodFill();
+        long start = Metrics.start();
+        int revealed = revealRegion(pos);
+        if (revealed < 0) revealed = floodFill(pos);
+
+        Metrics.FLOOD_FILL.recordSince(start);
+        Metrics.CELLS_FLOODED.add(revealed);
+        GameEvents.EVENTS.endFloodFill(event, rows, cols, pos / cols, pos % cols, revealed);
+        return revealed;
+    }
+
+    // Uncovers the listed region of the zero cell `pos`. A fill from `pos`
+    // uncovers exactly that list unless one of the region's other zero cells
+    // is flagged or already uncovered, which would stop it there; then, or
+    // when `pos` is not a zero cell, returns -1 and changes nothing.
+    private int revealRegion(int pos) {
+        if (!minesPlaced) return -1;
+        int region = zeroRegions.label(this, pos);
+        if (region < 0) return -1;
+
+        int borderStart = zeroRegions.borderStart(region);
+        for (int i = zeroRegions.start(region); i < borderStart; i++) {
+            int p = zeroRegions.cell(i);
+            if (p != pos && (cells.isRevealed(p) || cells.isFlagged(p))) return -1;
+        }
+
+        // a fill reaches a covered `pos` only from another zero cell
+        boolean alone = borderStart - zeroRegions.start(region) == 1;
+        int revealed = 0;
+        for (int i = zeroRegions.start(region), end = zeroRegions.end(region); i < end; i++) {
+            int p = zeroRegions.cell(i);
+            if (cells.isRevealed(p) || cells.isFlagged(p) || (p == pos && alone)) continue;
+            cells.setRevealed(p, true);
+            changed(p, Moves.REVEAL, 0);
+            revealed++;
+            if (!cells.isMine(p)) uncoveredSafeCells++;
+        }
+        markDirty(zeroRegions.minRow(region), zeroRegions.minCol(region));
+        markDirty(zeroRegions.maxRow(region), zeroRegions.maxCol(region));
+        return revealed;
+    }
+
+    // Reveals the region around `pos` using an explicit stack instead of
+    // recursion, so regions of any size are safe. Every cell is pushed at most
+    // once (it is uncovered as it is pushed), plus the start cell.
+    private int floodFill(int pos) {
+        int[] stack = floodStack;
+        int top = 0;
+        int revealed = 0;
+        stack[top++] = pos;
+
+        while (top > 0) {
+            int p = stack[--top];
+            int row = p / cols;
+            int col = p % cols;
+
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dr == 0 && dc == 0) continue;
+
+                    int nr = row + dr;
+                    int nc = col + dc;
+                    if (!isValidCell(nr, nc)) continue;
+
+                    int np = nr * cols + nc;
+
+                    // Skip if already revealed or flagged
+                    if (cells.isRevealed(np) || cells.isFlagged(np)) {
+                        continue;
+                    }
+
+                    cells.setRevealed(np, true);
+                    markDirty(nr, nc);
+                    changed(np, Moves.REVEAL, 0);
+                    revealed++;
+                    if (cells.isMine(np)) continue;
+
+                    uncoveredSafeCells++;
+                    if (neighborMines(np) == EMPTY_CELL) {
+                        if (top == stack.length) {
+                            stack = floodStack = Arrays.copyOf(stack, (int) Math.min(2L * stack.length, allCells + 1L));
+                        }
+                        stack[top++] = np;
+                    }
+                }
+            }
+        }
+        return revealed;
+    }
+
+    // MOVES
+    // Each move returns true when it changed the board.
+
+    public boolean reveal(int pos) {
+        if (!inGame || !isValidPosition(pos)) return false;
+        if (cells.isRevealed(pos) || cells.isFlagged(pos)) return false;
+
+        record(pos, Moves.REVEAL);
+        if (!minesPlaced) {
+            placeMines(pos);
+            changed(pos, Moves.DEAL, 0);  // so taking the move back takes the deal back
+        }
+        cells.setRevealed(pos, true);
+        markDirty(pos);
+        changed(pos, Moves.REVEAL, 0);
+
+        if (cells.isMine(pos)) {
+            inGame = false;
+            markAllDirty();  // every mine and wrong flag is shown now
+            for (GameListener l : listeners) l.cellsRevealed(pos, 1);
+            for (GameListener l : listeners) l.gameLost(currentPlayer);
+            return true;
+        }
+        uncoveredSafeCells++;
+        int revealed = 1;
+        if (neighborMines(pos) == EMPTY_CELL) {
+            revealed += findEmptyCells(pos);
+        }
+        currentPlayer = 1 - currentPlayer;
+        for (GameListener l : listeners) l.cellsRevealed(pos, revealed);
+        for (GameListener l : listeners) l.turnChanged(currentPlayer);
+        checkWin();
+        return true;
+    }
+
+    public boolean flag(int pos) {
+        if (!inGame || !isValidPosition(pos)) return false;
+        if (cells.isRevealed(pos) || cells.isFlagged(pos)) return false;
+
+        cells.setFlag(pos, currentPlayer);
+        markDirty(pos);
+        record(pos, Moves.FLAG);
+        changed(pos, Moves.FLAG, currentPlayer);
+        playerFlags[currentPlayer]++;
+        minesLeft--;
+        if (cells.isMine(pos)) correctlyFlaggedMines++;
+        else wrongFlags++;
+        for (GameListener l : listeners) l.flagChanged(pos, currentPlayer, true);
+        checkWin();
+        return true;
+    }
+
+    public boolean unflag(int pos) {
+        if (!inGame || !isValidPosition(pos)) return false;
+        if (cells.flagOwner(pos) != currentPlayer) return false;
+
+        cells.clearFlag(pos);
+        markDirty(pos);
+        record(pos, Moves.UNFLAG);
+        changed(pos, Moves.UNFLAG, currentPlayer);
+        playerFlags[currentPlayer]--;
+        minesLeft++;
+        if (cells.isMine(pos)) correctlyFlaggedMines--;
+        else wrongFlags--;
+        for (GameListener l : listeners) l.flagChanged(pos, currentPlayer, false);
+        checkWin();
+        return true;
+    }
+
+    // Applies a move encoded with Moves; refused unless it is that player's turn.
+    public boolean apply(long move) {
+        if (check(move) != Moves.APPLIED) return false;
+        int pos = Moves.position(move);
+        switch (Moves.action(move)) {
+            case Moves.REVEAL: return reveal(pos);
+            case Moves.FLAG:   return flag(pos);
+            default:           return unflag(pos);
+        }
+    }
+
+    // Why a move would be refused, or Moves.APPLIED if it is legal. Uses only
+    // what the players can see, so refusing a move reveals nothing.
+    public int check(long move) {
+        if (!inGame) return Moves.GAME_OVER;
+        if (Moves.player(move) != currentPlayer) return Moves.NOT_YOUR_TURN;
+        int pos = Moves.position(move);
+        if (!isValidPosition(pos)) return Moves.ILLEGAL;
+        switch (Moves.action(move)) {
+            case Moves.REVEAL:
+            case Moves.FLAG:
+                return cells.isRevealed(pos) || cells.isFlagged(pos) ? Moves.ILLEGAL : Moves.APPLIED;
+            case Moves.UNFLAG:
+                return cells.flagOwner(pos) == currentPlayer ? Moves.APPLIED : Moves.ILLEGAL;
+            default:
+                return Moves.ILLEGAL;
+        }
+    }
+
+    // BATCHES
+
+    // Applies moves[0..count) as one unit and writes each move's result to
+    // `results`. If a move breaks the rules, every earlier move in the batch
+    // is undone and the board is as before; a move that ends the game ends
+    // the batch but stands. Listeners hear one movesApplied() instead of an
+    // event per move, so a view repaints once. Returns true when the batch
+    // was kept.
+    public boolean applyBatch(long[] moves, int count, int[] results) {
+        GameListener[] saved = listeners;
+        listeners = NO_LISTENERS;
+        beginChanges();
+        int done = 0;
+        int refused = -1;
+        try {
+            for (; done < count; done++) {
+                int result = check(moves[done]);
+                if (result == Moves.GAME_OVER) break;
+                if (result != Moves.APPLIED) {
+                    refused = done;
+                    results[done] = result;
+                    break;
+                }
+                apply(moves[done]);
+                results[done] = Moves.APPLIED;
+            }
+            if (refused >= 0) {
+                undoChanges(refused);
+                for (int i = 0; i < refused; i++) results[i] = Moves.ROLLED_BACK;
+                for (int i = refused + 1; i < count; i++) results[i] = Moves.NOT_TRIED;
+            } else {
+                for (int i = done; i < count; i++) results[i] = Moves.GAME_OVER;
+            }
+        } finally {
+            logging = false;
+            listeners = saved;
+        }
+        if (refused >= 0 || done == 0) return refused < 0;
+
+        for (GameListener l : listeners) l.movesApplied(done);
+        if (!inGame) {
+            if (gameWon) {
+                for (GameListener l : listeners) l.gameWon(playerFlags[0], playerFlags[1]);
+            } else {
+                for (GameListener l : listeners) l.gameLost(currentPlayer);
+            }
+        }
+        return true;
+    }
+
+    // UNDO & REDO
+    // Need a MoveHistory; see setHistory().
+
+    // Takes back the last move. Costs as much as the move changed.
+    public boolean undo() {
+        if (history == null || !history.canUndo()) return false;
+        int entry = history.undoEntry();
+        for (int i = history.end(entry) - 1; i >= history.start(entry); i--) {
+            undoChange(history.changeAt(i));
+        }
+        history.stepBack();
+        // moves are only made in a running game, by the player to move
+        currentPlayer = Moves.player(history.move(entry));
+        inGame = true;
+        gameWon = false;
+        if (journal != null) journal.truncate(journal.size() - 1);
+        for (GameListener l : listeners) l.movesUndone(1);
+        return true;
+    }
+
+    // Makes the last undone move again, with the usual events.
+    public boolean redo() {
+        if (history == null || !history.canRedo()) return false;
+        long move = history.move(history.redoEntry());
+        history.beginRedo();
+        try {
+            return apply(move);
+        } finally {
+            history.endRedo();
+        }
+    }
+
+    public boolean canUndo() { return history != null && history.canUndo(); }
+    public boolean canRedo() { return history != null && history.canRedo(); }
+
+    // Scalars at beginChanges() that the cell changes do not imply.
+    private boolean savedInGame;
+    private boolean savedGameWon;
+    private int savedCurrentPlayer;
+    private int savedJournalSize;
+
+    private void beginChanges() {
+        savedInGame = inGame;
+        savedGameWon = gameWon;
+        savedCurrentPlayer = currentPlayer;
+        savedJournalSize = journal != null ? journal.size() : 0;
+        changeCount = 0;
+        logging = true;
+    }
+
+    // Walks the change log backwards to take back `moves` moves.
+    private void undoChanges(int moves) {
+        for (int i = changeCount - 1; i >= 0; i--) {
+            undoChange(changeLog[i]);
+        }
+        changeCount = 0;
+        inGame = savedInGame;
+        gameWon = savedGameWon;
+        currentPlayer = savedCurrentPlayer;
+        if (journal != null) journal.truncate(savedJournalSize);
+        if (history != null) history.dropNewest(moves);
+    }
+
+    // Reverses one logged cell change and the counters that followed it.
+    private void undoChange(long change) {
+        int pos = Moves.position(change);
+        int player = Moves.player(change);
+        boolean mine = cells.isMine(pos);
+        switch (Moves.action(change)) {
+            case Moves.REVEAL:
+                cells.setRevealed(pos, false);
+                if (mine) markAllDirty();  // the lost board showed every mine
+                else uncoveredSafeCells--;
+                break;
+            case Moves.FLAG:
+                cells.clearFlag(pos);
+                playerFlags[player]--;
+                minesLeft++;
+                if (mine) correctlyFlaggedMines--;
+                else wrongFlags--;
+                break;
+            case Moves.DEAL:
+                unplaceMines();
+                break;
+            default:
+                cells.setFlag(pos, player);
+                playerFlags[player]++;
+                minesLeft--;
+                if (mine) correctlyFlaggedMines++;
+                else wrongFlags++;
+                break;
+        }
+        markDirty(pos);
+    }
+
+    private void logChange(int pos, int action, int player) {
+        if (changeCount == changeLog.length) {
+            changeLog = Arrays.copyOf(changeLog, changeCount * 2);
+        }
+        changeLog[changeCount++] = Moves.encode(pos, action, player);
+    }
+
+    private void record(int pos, int action) {
+        if (journal != null) {
+            journal.append(Moves.encode(pos, action, currentPlayer));
+        }
+        if (history != null) {
+            history.beginMove(Moves.encode(pos, action, currentPlayer));
+        }
+    }
+
+    // Every cell a move changes passes through here, after record().
+    private void changed(int pos, int action, int player) {
+        if (logging) logChange(pos, action, player);
+        if (history != null) history.change(Moves.encode(pos, action, player));
+    }
+
+    public boolean toggleFlag(int pos) {
+        if (!isValidPosition(pos)) return false;
+        return cells.isFlagged(pos) ? unflag(pos) : flag(pos);
+    }
+
+    // Ends the game as won when every safe cell is uncovered and every mine
+    // is flagged by someone, with no wrong flags left on the board.
+    public boolean checkWin() {
+        if (inGame && wrongFlags == 0
+                && uncoveredSafeCells == allCells - mines
+                && correctlyFlaggedMines == mines) {
+            inGame = false;
+            gameWon = true;
+            markAllDirty();
+            for (GameListener l : listeners) l.gameWon(playerFlags[0], playerFlags[1]);
+        }
+        return gameWon;
+    }
+
+    private void recountCells() {
+        uncoveredSafeCells = cells.countRevealedSafe();
+        correctlyFlaggedMines = cells.countFlaggedMines();
+        wrongFlags = cells.countFlaggedSafe();
+        playerFlags[0] = cells.countFlags(0);
+        playerFlags[1] = cells.countFlags(1);
+    }
+
+    // SNAPSHOTS
+
+    public void save(WritableByteChannel channel) throws IOException {
+        new GameSnapshot().write(this, channel);
+    }
+
+    public void load(ReadableByteChannel channel) throws IOException {
+        new GameSnapshot().read(this, channel);
+    }
+
+    // Called by GameSnapshot: resets the engine to the saved settings and
+    // hands back empty cell storage to read the bitsets into.
+    PackedCells beginRestore(BoardConfig config, long seed, boolean inGame, boolean gameWon,
+                             int currentPlayer, int minesLeft, boolean minesPlaced, boolean firstClickSafe) {
+        this.config = config;
+        this.seed = seed;
+        this.journal = null;  // moves before the snapshot are unknown
+        if (history != null) history.clear();
+        this.opened = false;
+        initializeBoard();
+        if (!minesPlaced && !(random instanceof SecureRandom)) {
+            random.setSeed(seed);  // so the first reveal places what it would have
+        }
+        this.inGame = inGame;
+        this.gameWon = gameWon;
+        this.currentPlayer = currentPlayer;
+        this.minesLeft = minesLeft;
+        this.minesPlaced = minesPlaced;
+        this.firstClickSafe = firstClickSafe;
+        return cells;
+    }
+
+    void finishRestore() {
+        // counts are not saved; revealed cells are the ones readers rely on
+        for (int pos = 0; pos < allCells; pos++) {
+            if (cells.isRevealed(pos)) neighborMines(pos);
+        }
+        recountCells();
+        markAllDirty();
+        for (GameListener l : listeners) l.gameStarted(this);
+    }
+
+    // DIRTY REGION
+
+    private void markDirty(int pos) {
+        markDirty(pos / cols, pos % cols);
+    }
+
+    private void markDirty(int row, int col) {
+        if (row < dirtyMinRow) dirtyMinRow = row;
+        if (row > dirtyMaxRow) dirtyMaxRow = row;
+        if (col < dirtyMinCol) dirtyMinCol = col;
+        if (col > dirtyMaxCol) dirtyMaxCol = col;
+    }
+
+    private void markAllDirty() {
+        dirtyMinRow = 0;
+        dirtyMaxRow = rows - 1;
+        dirtyMinCol = 0;
+        dirtyMaxCol = cols - 1;
+    }
+
+    public void clearDirtyRegion() {
+        dirtyMinRow = Integer.MAX_VALUE;
+        dirtyMaxRow = Integer.MIN_VALUE;
+        dirtyMinCol = Integer.MAX_VALUE;
+        dirtyMaxCol = Integer.MIN_VALUE;
+    }
+
+    public boolean hasDirtyRegion() { return dirtyMinRow <= dirtyMaxRow; }
+    public int getDirtyMinRow() { return dirtyMinRow; }
+    public int getDirtyMaxRow() { return dirtyMaxRow; }
+    public int getDirtyMinCol() { return dirtyMinCol; }
+    public int getDirtyMaxCol() { return dirtyMaxCol; }
+
+    public boolean isValidPosition(int pos) {
+        return pos >= 0 && pos < allCells;
+    }
+
+    // LEGACY ENCODING
+    // Views and tests still see a cell as one int: the neighbour count or
+    // MINE_CELL, plus COVER_FOR_CELL when covered and MARK_FOR_CELL on top of
+    // that when flagged. The marker is the flag owner or NO_PLAYER. Covered
+    // cells that are not mines read as a count of 0 in cellAt(): no view
+    // shows their count, so it is only computed once they are revealed.
+
+    int cellAt(int pos) {
+        if (cells.isRevealed(pos)) return cells.isMine(pos) ? MINE_CELL : neighborMines(pos);
+        int value = cells.isMine(pos) ? COVERED_MINE_CELL : COVER_FOR_CELL;
+        return cells.isFlagged(pos) ? value + MARK_FOR_CELL : value;
+    }
+
+    int markerAt(int pos) { return cells.flagOwner(pos); }
+
+    // The whole board with the counts of covered cells too, for tests and
+    // comparisons. Counts that are not kept yet are worked out without being
+    // kept, so this does not undo the laziness of neighborMines().
+    public int[] getField() {
+        int[] field = new int[allCells];
+        for (int pos = 0; pos < allCells; pos++) {
+            int value = cellAt(pos);
+            if (value == COVER_FOR_CELL || value == MARKED_CELL) {
+                value += !minesPlaced ? 0 : cells.isCounted(pos) ? cells.count(pos) : countNeighborMines(pos);
+            }
+            field[pos] = value;
+        }
+        return field;
+    }
+
+    public int[] getMarkers() {
+        int[] markers = new int[allCells];
+        for (int pos = 0; pos < allCells; pos++) {
+            markers[pos] = cells.flagOwner(pos);
+        }
+        return markers;
+    }
+
+    // Flagged cells keep their current owner, or go to player 1 when they had
+    // none; setMarkersForTesting() can reassign them. Player flag counts and
+    // the win counters are recomputed from the result.
+    public void setFieldForTesting(int[] testField) {
+        for (int pos = 0; pos < allCells; pos++) {
+            int value = testField[pos];
+            boolean covered = value >= COVER_FOR_CELL;
+            boolean flagged = value >= COVER_FOR_CELL + MARK_FOR_CELL;
+            if (flagged) value -= MARK_FOR_CELL;
+            if (covered) value -= COVER_FOR_CELL;
+
+            cells.setMine(pos, value == MINE_CELL);
+            cells.setCount(pos, value == MINE_CELL ? 0 : value);
+            cells.setRevealed(pos, !covered);
+            if (!flagged) cells.clearFlag(pos);
+            else if (!cells.isFlagged(pos)) cells.setFlag(pos, 0);
+        }
+        minesPlaced = true;
+        zeroRegions.invalidate();
+        recountCells();
+        markAllDirty();
+    }
+
+    // Reassigns the owner of flagged cells; markers on unflagged cells are ignored.
+    public void setMarkersForTesting(int[] testMarkers) {
+        for (int pos = 0; pos < allCells; pos++) {
+            if (cells.isFlagged(pos) && testMarkers[pos] != NO_PLAYER) {
+                cells.setFlag(pos, testMarkers[pos]);
+            }
+        }
+        recountCells();
+        markAllDirty();
+    }
+
+    // GETTERS & SETTERS
+    PackedCells getCells() { return cells; }
+    int indexedRegions() { return zeroRegions.regionCount(); }
+
+    // Records every successful move of this game and the following ones;
+    // attach it before the first move, or the journal cannot be replayed.
+    public void setJournal(MoveJournal journal) {
+        this.journal = journal;
+        if (journal != null) journal.start(config, seed, opened, firstClickSafe);
+    }
+    public MoveJournal getJournal() { return journal; }
+
+    // Starts undo/redo from the current position; null turns it off.
+    public void setHistory(MoveHistory history) {
+        this.history = history;
+        if (history != null) history.clear();
+    }
+    public MoveHistory getHistory() { return history; }
+
+    public void addListener(GameListener listener) {
+        GameListener[] grown = Arrays.copyOf(listeners, listeners.length + 1);
+        grown[listeners.length] = listener;
+        listeners = grown;
+    }
+
+    public void removeListener(GameListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                GameListener[] shrunk = Arrays.copyOf(listeners, listeners.length - 1);
+                System.arraycopy(listeners, i + 1, shrunk, i, listeners.length - i - 1);
+                listeners = shrunk;
+                return;
+            }
+        }
+    }
+
+    // Opt-in: every later newGame() deals a board that can be solved from
+    // the opening without guessing, found by `generator` within its time
+    // budget. The generator checks boards dealt by SplitMixRandom, so only an
+    // engine with that generator deals the board that was checked.
+    public void setNoGuess(NoGuessGenerator generator) {
+        if (generator != null && random.getClass() != SplitMixRandom.class) {
+            throw new IllegalStateException("No-guess boards can only be dealt from a SplitMixRandom");
+        }
+        this.noGuess = generator;
+    }
+    public boolean isNoGuess() { return noGuess != null; }
+    public boolean hasOpening() { return opened; }
+
+    public int getCurrentPlayer() { return currentPlayer; }
+    public boolean isInGame() { return inGame; }
+    public boolean isGameWon() { return gameWon; }
+    public int getMinesLeft() { return minesLeft; }
+    public int[] getPlayerFlags() { return playerFlags.clone(); }
+    public int getPlayerFlags(int player) { return playerFlags[player]; }
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public int getAllCells() { return allCells; }
+    public int getTotalMines() { return mines; }
+    public BoardConfig getConfig() { return config; }
+    public long getSeed() { return seed; }
+
+    public int getUncoveredSafeCells() { return uncoveredSafeCells; }
+    public int getCorrectlyFlaggedMines() { return correctlyFlaggedMines; }
+    public int getWrongFlags() { return wrongFlags; }
+
+    public void setInGame(boolean inGame) { this.inGame = inGame; markAllDirty(); }
+    public void setGameWon(boolean gameWon) { this.gameWon = gameWon; }
+    public void setCurrentPlayer(int p) { this.currentPlayer = p; }
+    public void setMinesLeft(int minesLeft) { this.minesLeft = minesLeft; }
+}
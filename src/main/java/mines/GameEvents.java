@@ -0,0 +1,57 @@
+package mines;
+
+// Flight Recorder events for the game's hot spots. They are all disabled
+// unless a recording asks for them, e.g.
+//
+//   java -XX:StartFlightRecording=filename=mines.jfr,settings=profile -jar mines.jar
+//
+// or jcmd <pid> JFR.start on a running game.
+//
+// The jdk.jfr API only exists from Java 11 and the game still runs on 8, so
+// the events themselves are in JfrGameEvents (src/main/java11), compiled
+// only by a JDK 11 build and loaded by name. Without it, or on an older
+// JVM, EVENTS is this class and every call does nothing.
+//
+// A begin call returns the event to hand back to the matching end call, or
+// null when nothing records it; fields are only filled in for a recording.
+// For an endless world rows and cols are 0, and rows and columns of cells
+// are world coordinates.
+class GameEvents {
+
+    static final GameEvents EVENTS = load();
+
+    GameEvents() {
+    }
+
+    private static GameEvents load() {
+        try {
+            return (GameEvents) Class.forName("mines.JfrGameEvents").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new GameEvents();
+        }
+    }
+
+    // A click on the board, from the mouse press to the engine being done
+    Object beginMove() { return null; }
+
+    void endMove(Object event, int rows, int cols, int row, int col, String action, int player, int cellsRevealed) {
+    }
+
+    // Uncovering the area around an empty cell
+    Object beginFloodFill() { return null; }
+
+    void endFloodFill(Object event, int rows, int cols, int originRow, int originCol, int cellsRevealed) {
+    }
+
+    // Dealing a board, including the no-guess search when it is on
+    Object beginNewGame() { return null; }
+
+    void endNewGame(Object event, int rows, int cols, int mines, boolean noGuess, long seed) {
+    }
+
+    // One Board or EndlessBoard paint() call
+    Object beginPaint() { return null; }
+
+    void endPaint(Object event, int rows, int cols, int cellSize, int cellsPainted) {
+    }
+}
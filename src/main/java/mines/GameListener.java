@@ -0,0 +1,36 @@
+package mines;
+
+// Changes to a GameEngine, delivered on the thread that made them, right
+// after the engine state is updated. Methods do nothing unless overridden.
+interface GameListener {
+
+    // A new board was dealt or a saved one restored; everything changed.
+    default void gameStarted(GameEngine engine) {
+    }
+
+    // A reveal at `pos` uncovered `count` cells, flood fill included.
+    default void cellsRevealed(int pos, int count) {
+    }
+
+    default void flagChanged(int pos, int player, boolean flagged) {
+    }
+
+    default void turnChanged(int player) {
+    }
+
+    // A batch applied `count` moves and sent no per-move events; anything
+    // may have changed. Game won/lost still follow when the batch ended it.
+    default void movesApplied(int count) {
+    }
+
+    // `count` moves were taken back; anything may have changed, and a game
+    // that had ended is running again.
+    default void movesUndone(int count) {
+    }
+
+    default void gameWon(int flagsPlayer1, int flagsPlayer2) {
+    }
+
+    default void gameLost(int loser) {
+    }
+}
@@ -0,0 +1,206 @@
+package mines;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+// Versioned binary snapshot of a game in progress.
+//
+// Layout (big-endian):
+//   int   magic 'MINE'
+//   short version
+//   byte  status bits (1 = in game, 2 = won, 4 = mines not placed yet,
+//         8 = first click safe)
+//   byte  current player
+//   int   rows, cols, mines
+//   long  seed
+//   int   mines left, as shown to the players
+//   long[] mine, revealed, player 1 flag and player 2 flag bitsets
+//
+// Neighbour counts, flag totals and win counters are rebuilt on load. Reads
+// never go past the end of the snapshot, so several can share one channel.
+// Version 1 snapshots are still read; they only know the first two status
+// bits, and their games were all dealt.
+// An instance reuses its scratch buffer across games and is not thread-safe.
+final class GameSnapshot {
+
+    static final int MAGIC = 0x4D494E45;
+    static final short VERSION = 2;
+    static final int HEADER_BYTES = 4 + 2 + 1 + 1 + 4 * 3 + 8 + 4;
+
+    private static final int STATUS_IN_GAME = 1;
+    private static final int STATUS_WON = 2;
+    // Mines are placed on the first reveal (version 2)
+    private static final int STATUS_UNDEALT = 4;
+    private static final int STATUS_FIRST_CLICK_SAFE = 8;
+    // Status bits each version may set; any other bit is refused.
+    private static final int[] KNOWN_STATUS = {0, STATUS_IN_GAME | STATUS_WON,
+            STATUS_IN_GAME | STATUS_WON | STATUS_UNDEALT | STATUS_FIRST_CLICK_SAFE};
+
+    private final ByteBuffer buffer;
+
+    GameSnapshot() {
+        this(64 * 1024);
+    }
+
+    GameSnapshot(int bufferSize) {
+        buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, HEADER_BYTES));
+    }
+
+    void write(GameEngine engine, WritableByteChannel channel) throws IOException {
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.put((byte) ((engine.isInGame() ? STATUS_IN_GAME : 0) | (engine.isGameWon() ? STATUS_WON : 0)
+                | (engine.areMinesPlaced() ? 0 : STATUS_UNDEALT)
+                | (engine.isFirstClickSafe() ? STATUS_FIRST_CLICK_SAFE : 0)));
+        buffer.put((byte) engine.getCurrentPlayer());
+        buffer.putInt(engine.getRows());
+        buffer.putInt(engine.getCols());
+        buffer.putInt(engine.getTotalMines());
+        buffer.putLong(engine.getSeed());
+        buffer.putInt(engine.getMinesLeft());
+
+        PackedCells cells = engine.getCells();
+        for (int plane = 0; plane < PackedCells.PLANES; plane++) {
+            for (long word : cells.plane(plane)) {
+                if (buffer.remaining() < Long.BYTES) flush(channel);
+                buffer.putLong(word);
+            }
+        }
+        flush(channel);
+    }
+
+    // Reads and checks the whole snapshot before touching `engine`, so a
+    // corrupt or truncated one leaves the engine as it was.
+    void read(GameEngine engine, ReadableByteChannel channel) throws IOException {
+        buffer.clear();
+        buffer.limit(HEADER_BYTES);
+        readFully(channel);
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a game snapshot");
+        }
+        short version = buffer.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported game snapshot version " + version);
+        }
+        int status = buffer.get();
+        if ((status & ~KNOWN_STATUS[version]) != 0) {
+            throw new IOException("Unknown game snapshot status " + status + " in version " + version);
+        }
+        boolean inGame = (status & STATUS_IN_GAME) != 0;
+        boolean gameWon = (status & STATUS_WON) != 0;
+        boolean minesPlaced = (status & STATUS_UNDEALT) == 0;
+        boolean firstClickSafe = version == 1 ? engine.isFirstClickSafe() : (status & STATUS_FIRST_CLICK_SAFE) != 0;
+        if (inGame && gameWon) {
+            throw new IOException("Corrupt game snapshot: won game still in progress");
+        }
+        int currentPlayer = buffer.get();
+        if (currentPlayer != 0 && currentPlayer != 1) {
+            throw new IOException("Corrupt game snapshot: no player " + currentPlayer);
+        }
+        int rows = buffer.getInt();
+        int cols = buffer.getInt();
+        int mines = buffer.getInt();
+        long seed = buffer.getLong();
+        int minesLeft = buffer.getInt();
+
+        BoardConfig config;
+        try {
+            config = BoardConfig.custom(rows, cols, mines);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt game snapshot: " + e.getMessage(), e);
+        }
+        int allCells = config.getAllCells();
+        if (minesLeft > mines || minesLeft < mines - allCells) {
+            throw new IOException("Corrupt game snapshot: " + minesLeft + " mines left of " + mines);
+        }
+
+        int wordsPerPlane = (allCells + 63) >>> 6;
+        long unread = (long) wordsPerPlane * PackedCells.PLANES * Long.BYTES;
+        if (channel instanceof SeekableByteChannel) {
+            SeekableByteChannel file = (SeekableByteChannel) channel;
+            if (file.size() - file.position() < unread) throw new EOFException("Truncated game snapshot");
+        }
+
+        // Read whole buffers of words, but never more than the snapshot holds.
+        // The header's size is only a claim until the words arrive, so the
+        // planes grow with them rather than being allocated up front.
+        long[][] planes = new long[PackedCells.PLANES][];
+        for (int plane = 0; plane < PackedCells.PLANES; plane++) {
+            long[] words = new long[Math.min(wordsPerPlane, buffer.capacity() / Long.BYTES)];
+            for (int i = 0; i < wordsPerPlane; i++) {
+                if (!buffer.hasRemaining()) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity() & ~7, unread));
+                    unread -= buffer.limit();
+                    readFully(channel);
+                }
+                if (i == words.length) words = Arrays.copyOf(words, (int) Math.min(wordsPerPlane, 2L * i));
+                words[i] = buffer.getLong();
+            }
+            planes[plane] = words;
+        }
+        checkPlanes(planes, allCells, mines, minesPlaced);
+
+        PackedCells cells = engine.beginRestore(config, seed, inGame, gameWon, currentPlayer, minesLeft,
+                minesPlaced, firstClickSafe);
+        for (int plane = 0; plane < PackedCells.PLANES; plane++) {
+            System.arraycopy(planes[plane], 0, cells.plane(plane), 0, wordsPerPlane);
+        }
+        engine.finishRestore();
+    }
+
+    // Refuses planes that no game leaves behind: bits past the last cell, a
+    // cell flagged by both players or flagged and revealed, a mine count
+    // other than the header's, or reveals before the mines are placed.
+    private static void checkPlanes(long[][] planes, int allCells, int mines, boolean minesPlaced)
+            throws IOException {
+        long[] mineBits = planes[0];
+        long[] revealed = planes[1];
+        long[] first = planes[2];
+        long[] second = planes[3];
+        int last = mineBits.length - 1;
+        long pastEnd = (allCells & 63) == 0 ? 0 : -1L << allCells;
+        long mineCount = 0;
+        for (int i = 0; i <= last; i++) {
+            long beyond = i == last ? pastEnd : 0;
+            if (((mineBits[i] | revealed[i] | first[i] | second[i]) & beyond) != 0
+                    || (first[i] & second[i]) != 0
+                    || ((first[i] | second[i]) & revealed[i]) != 0
+                    || (!minesPlaced && revealed[i] != 0)) {
+                throw new IOException("Corrupt game snapshot: impossible cells");
+            }
+            mineCount += Long.bitCount(mineBits[i]);
+        }
+        long expected = minesPlaced ? mines : 0;
+        if (mineCount != expected) {
+            throw new IOException("Corrupt game snapshot: " + mineCount + " mines, expected " + expected);
+        }
+    }
+
+    static long sizeOf(GameEngine engine) {
+        return HEADER_BYTES + (long) engine.getCells().wordsPerPlane() * PackedCells.PLANES * Long.BYTES;
+    }
+
+    private void flush(WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Fills the buffer up to its limit, then flips it for reading.
+    private void readFully(ReadableByteChannel channel) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new EOFException("Truncated game snapshot");
+        }
+        buffer.flip();
+    }
+}
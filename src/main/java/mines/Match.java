@@ -0,0 +1,126 @@
+package mines;
+
+// One two-player game hosted by MatchServer. Each match has its own lock,
+// so moves in different matches never contend.
+final class Match {
+
+    interface Seat {
+        void send(String line);
+    }
+
+    private final int id;
+    private final GameEngine engine;
+    private final Seat[] seats = new Seat[2];
+    // Set once both seats are taken; from then on a seat that is left stays
+    // empty, so nobody can take over half a game.
+    private boolean full;
+    // Seat that left while the game was running, or NO_PLAYER.
+    private int leftBy = GameEngine.NO_PLAYER;
+
+    Match(int id, BoardConfig config, long seed) {
+        this(id, config, seed, null);
+    }
+
+    // With a generator, the match is dealt a no-guess board with its opening
+    // already uncovered.
+    Match(int id, BoardConfig config, long seed, NoGuessGenerator noGuess) {
+        this.id = id;
+        this.engine = new GameEngine(config);
+        engine.setNoGuess(noGuess);
+        engine.newGame(seed);
+    }
+
+    int getId() { return id; }
+
+    // Returns the seat number taken, or NO_PLAYER when the match is full or
+    // has had both players.
+    synchronized int join(Seat seat) {
+        if (full) return GameEngine.NO_PLAYER;
+        for (int i = 0; i < seats.length; i++) {
+            if (seats[i] == null) {
+                seats[i] = seat;
+                full = seats[0] != null && seats[1] != null;
+                return i;
+            }
+        }
+        return GameEngine.NO_PLAYER;
+    }
+
+    // A player leaving a running game ends it: the other seat is sent
+    // END LEFT <seat>. Returns true once the match can take no more players
+    // and should no longer be listed.
+    synchronized boolean leave(Seat seat) {
+        for (int i = 0; i < seats.length; i++) {
+            if (seats[i] != seat) continue;
+            seats[i] = null;
+            if (full && engine.isInGame() && leftBy == GameEngine.NO_PLAYER) {
+                leftBy = i;
+                broadcast("END LEFT " + i);
+            }
+        }
+        return full || (seats[0] == null && seats[1] == null);
+    }
+
+    // Applies a move for `player` and tells both seats about it. Returns
+    // null on success or the reason the move was refused.
+    synchronized String move(int player, boolean reveal, int pos) {
+        if (!engine.isInGame() || leftBy != GameEngine.NO_PLAYER) return "game over";
+        if (seats[1] == null) return "waiting for opponent";
+        if (player != engine.getCurrentPlayer()) return "not your turn";
+
+        boolean changed = reveal ? engine.reveal(pos) : engine.toggleFlag(pos);
+        if (!changed) return "illegal move";
+
+        broadcast("MOVED " + player + (reveal ? " R " : " F ") + pos);
+        if (!engine.isInGame()) {
+            broadcast("END " + result());
+        }
+        return null;
+    }
+
+    synchronized String state() {
+        String status = leftBy != GameEngine.NO_PLAYER ? "LEFT"
+                : engine.isInGame() ? "PLAYING" : engine.isGameWon() ? "WON" : "LOST";
+        return status + " " + engine.getCurrentPlayer() + " " + engine.getMinesLeft()
+                + " " + engine.getPlayerFlags(0) + " " + engine.getPlayerFlags(1);
+    }
+
+    // Board as seen by players: '.' covered, 'F'/'f' flags of player 1/2,
+    // '0'-'8' revealed numbers and '*' for a revealed mine.
+    synchronized String board() {
+        int cells = engine.getAllCells();
+        StringBuilder sb = new StringBuilder(cells + 16);
+        sb.append(engine.getRows()).append(' ').append(engine.getCols()).append(' ');
+        for (int pos = 0; pos < cells; pos++) {
+            sb.append(symbol(engine, pos));
+        }
+        return sb.toString();
+    }
+
+    static char symbol(GameEngine engine, int pos) {
+        int cell = engine.cellAt(pos);
+        if (cell >= GameEngine.MARKED_CELL) {
+            return engine.markerAt(pos) == 0 ? 'F' : 'f';
+        } else if (cell >= GameEngine.COVER_FOR_CELL) {
+            return '.';
+        } else if (cell == GameEngine.MINE_CELL) {
+            return '*';
+        }
+        return (char) ('0' + cell);
+    }
+
+    private String result() {
+        if (!engine.isGameWon()) {
+            return "LOST " + engine.getCurrentPlayer();
+        }
+        int p1 = engine.getPlayerFlags(0);
+        int p2 = engine.getPlayerFlags(1);
+        return "WON " + (p1 > p2 ? "0" : p2 > p1 ? "1" : "DRAW") + " " + p1 + " " + p2;
+    }
+
+    private void broadcast(String line) {
+        for (Seat seat : seats) {
+            if (seat != null) seat.send(line);
+        }
+    }
+}
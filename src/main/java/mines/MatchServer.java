@@ -0,0 +1,433 @@
+package mines;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hosts many independent matches over a line-based TCP protocol.
+//
+// Connections are spread over one selector loop per core, so an idle client
+// costs a registered channel and a small read buffer, not a thread. Matches
+// live in a concurrent map and each one locks only itself.
+//
+// Commands (one per line, replies are single lines):
+//   NEW [rows cols mines [seed]] [NOGUESS]
+//                                 -> MATCH <id> <seat>, boards up to MAX_SIDE
+//                                    on a side and MAX_CELLS cells; ERR busy
+//                                    while MAX_SEARCHES no-guess searches run
+//   JOIN <id>                     -> MATCH <id> <seat>, only while a seat
+//                                    has never been taken
+//   REVEAL <pos> | FLAG <pos>     -> OK, then MOVED/END sent to both seats
+//   STATE                         -> STATE <status> <player> <minesLeft> <flags1> <flags2>
+//   BOARD                         -> BOARD <rows> <cols> <cells>
+//   PING                          -> PONG
+//   QUIT
+// A player who leaves a running match ends it with END LEFT <seat> to the
+// other one. Errors are reported as "ERR <reason>".
+final class MatchServer implements AutoCloseable {
+
+    static final int DEFAULT_PORT = 7777;
+
+    private static final int MAX_LINE = 256;
+
+    // Far below what BoardConfig allows: any client may ask for a board, and
+    // the match and every BOARD reply are as large as it.
+    static final int MAX_SIDE = 512;
+    static final int MAX_CELLS = 65_536;
+
+    // Replies queued for a client that does not read them; past this the
+    // connection is closed. A BOARD reply for MAX_CELLS is about 64 KB.
+    static final int MAX_PENDING_BYTES = 1 << 20;
+
+    // No-guess searches running at once. Each one keeps every core of the
+    // common pool busy for up to its whole budget.
+    static final int MAX_SEARCHES = 2;
+
+    private final ServerSocketChannel server;
+    private final EventLoop[] loops;
+    private final Thread acceptor;
+    private final Map<Integer, Match> matches = new ConcurrentHashMap<>();
+    private final AtomicInteger nextMatchId = new AtomicInteger(1);
+    private final NoGuessGenerator noGuess;
+    private final Semaphore searches;
+    private volatile boolean running = true;
+
+    MatchServer(int port) throws IOException {
+        this(port, Runtime.getRuntime().availableProcessors());
+    }
+
+    MatchServer(int port, int loopCount) throws IOException {
+        this(port, loopCount, new NoGuessGenerator(), MAX_SEARCHES);
+    }
+
+    MatchServer(int port, int loopCount, NoGuessGenerator noGuess, int maxSearches) throws IOException {
+        this.noGuess = noGuess;
+        this.searches = new Semaphore(maxSearches);
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+
+        loops = new EventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new EventLoop("mines-loop-" + i);
+            loops[i].thread.start();
+        }
+        acceptor = new Thread(this::acceptLoop, "mines-acceptor");
+        acceptor.start();
+    }
+
+    int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    int getMatchCount() {
+        return matches.size();
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = server.accept();
+                channel.configureBlocking(false);
+                loops[next].register(channel);
+                next = (next + 1) % loops.length;
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (!running) return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        server.close();
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+    }
+
+    // PROTOCOL
+
+    private void handleLine(Connection conn, String line) {
+        String[] parts = line.trim().split("\\s+");
+        String command = parts[0].toUpperCase();
+        try {
+            switch (command) {
+                case "NEW":
+                    newMatch(conn, parts);
+                    break;
+                case "JOIN":
+                    joinMatch(conn, matches.get(Integer.parseInt(parts[1])));
+                    break;
+                case "REVEAL":
+                case "FLAG":
+                    move(conn, "REVEAL".equals(command), Integer.parseInt(parts[1]));
+                    break;
+                case "STATE":
+                    if (requireMatch(conn)) conn.send("STATE " + conn.match.state());
+                    break;
+                case "BOARD":
+                    if (requireMatch(conn)) conn.send("BOARD " + conn.match.board());
+                    break;
+                case "PING":
+                    conn.send("PONG");
+                    break;
+                case "QUIT":
+                    conn.close();
+                    break;
+                case "":
+                    break;
+                default:
+                    conn.send("ERR unknown command " + parts[0]);
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            conn.send("ERR bad arguments");
+        } catch (IllegalArgumentException e) {
+            conn.send("ERR " + e.getMessage());
+        }
+    }
+
+    private void newMatch(Connection conn, String[] parts) {
+        boolean noGuess = parts.length > 1 && "NOGUESS".equalsIgnoreCase(parts[parts.length - 1]);
+        if (noGuess) parts = Arrays.copyOf(parts, parts.length - 1);
+
+        if (parts.length != 1 && parts.length != 4 && parts.length != 5) {
+            conn.send("ERR bad arguments");
+            return;
+        }
+        BoardConfig config = parts.length >= 4
+                ? boardConfig(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]))
+                : BoardConfig.INTERMEDIATE;
+        long seed = parts.length == 5 ? Long.parseLong(parts[4]) : System.nanoTime();
+
+        int id = nextMatchId.getAndIncrement();
+        if (noGuess) {
+            // The search can take its whole time budget, so keep it off the loop
+            if (!searches.tryAcquire()) {
+                conn.send("ERR busy");
+                return;
+            }
+            CompletableFuture.supplyAsync(() -> new Match(id, config, seed, this.noGuess))
+                    .whenComplete((match, failure) -> {
+                        searches.release();
+                        conn.loop.execute(() -> {
+                            if (failure == null) startMatch(conn, match);
+                            else if (conn.channel.isOpen()) conn.send("ERR " + reason(failure));
+                        });
+                    });
+            return;
+        }
+        startMatch(conn, new Match(id, config, seed));
+    }
+
+    private static BoardConfig boardConfig(int rows, int cols, int mines) {
+        if (rows > MAX_SIDE || cols > MAX_SIDE || (long) rows * cols > MAX_CELLS) {
+            throw new IllegalArgumentException("board larger than " + MAX_CELLS + " cells or " + MAX_SIDE + " on a side");
+        }
+        return BoardConfig.custom(rows, cols, mines);
+    }
+
+    private static String reason(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        return cause.getMessage() != null ? cause.getMessage() : "no match";
+    }
+
+    // A no-guess match arrives after its search, when the client may have
+    // gone or joined another match; then it is never listed.
+    private void startMatch(Connection conn, Match match) {
+        if (!conn.channel.isOpen()) return;
+        matches.put(match.getId(), match);
+        joinMatch(conn, match);
+        if (conn.match != match) matches.remove(match.getId());
+    }
+
+    private void joinMatch(Connection conn, Match match) {
+        if (match == null) {
+            conn.send("ERR no such match");
+            return;
+        }
+        if (conn.match != null) {
+            conn.send("ERR already in a match");
+            return;
+        }
+        int seat = match.join(conn);
+        if (seat == GameEngine.NO_PLAYER) {
+            conn.send("ERR match full");
+            return;
+        }
+        conn.match = match;
+        conn.seat = seat;
+        conn.send("MATCH " + match.getId() + " " + seat);
+    }
+
+    private void move(Connection conn, boolean reveal, int pos) {
+        if (!requireMatch(conn)) return;
+        String error = conn.match.move(conn.seat, reveal, pos);
+        conn.send(error == null ? "OK" : "ERR " + error);
+    }
+
+    private boolean requireMatch(Connection conn) {
+        if (conn.match == null) conn.send("ERR not in a match");
+        return conn.match != null;
+    }
+
+    private void leaveMatch(Connection conn) {
+        Match match = conn.match;
+        if (match != null && match.leave(conn)) {
+            matches.remove(match.getId());
+        }
+        conn.match = null;
+    }
+
+    // NETWORKING
+
+    private final class EventLoop implements Runnable {
+        final Selector selector;
+        final Thread thread;
+        final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        // Shared by every connection on this loop; only this thread reads.
+        final ByteBuffer readBuffer = ByteBuffer.allocateDirect(8192);
+
+        EventLoop(String name) throws IOException {
+            selector = Selector.open();
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+        }
+
+        void register(SocketChannel channel) {
+            execute(() -> {
+                try {
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                    key.attach(new Connection(this, channel, key));
+                } catch (ClosedChannelException e) {
+                    // client went away before registration
+                }
+            });
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select();
+                } catch (IOException e) {
+                    return;
+                }
+                for (Runnable task; (task = tasks.poll()) != null; ) {
+                    task.run();
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    Connection conn = (Connection) key.attachment();
+                    if (!key.isValid()) continue;
+                    if (key.isWritable()) conn.flush();
+                    if (key.isValid() && key.isReadable()) conn.read(readBuffer);
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                ((Connection) key.attachment()).close();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // shutting down anyway
+            }
+        }
+    }
+
+    private final class Connection implements Match.Seat {
+        final EventLoop loop;
+        final SocketChannel channel;
+        final SelectionKey key;
+        final byte[] line = new byte[MAX_LINE];
+        int lineLength;
+        boolean overflow;
+
+        // Guarded by `this`; writes can come from other matches' threads.
+        final Queue<ByteBuffer> pending = new ArrayDeque<>();
+        int pendingBytes;
+        boolean dropped;   // over MAX_PENDING_BYTES, closing
+
+        // Only touched by the loop thread.
+        Match match;
+        int seat;
+
+        Connection(EventLoop loop, SocketChannel channel, SelectionKey key) {
+            this.loop = loop;
+            this.channel = channel;
+            this.key = key;
+        }
+
+        void read(ByteBuffer buffer) {
+            buffer.clear();
+            int n;
+            try {
+                n = channel.read(buffer);
+            } catch (IOException e) {
+                n = -1;
+            }
+            if (n < 0) {
+                close();
+                return;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    if (overflow) send("ERR line too long");
+                    else handleLine(this, new String(line, 0, lineLength, StandardCharsets.US_ASCII));
+                    lineLength = 0;
+                    overflow = false;
+                } else if (b != '\r') {
+                    if (lineLength < MAX_LINE) line[lineLength++] = b;
+                    else overflow = true;
+                }
+            }
+        }
+
+        @Override
+        public void send(String text) {
+            ByteBuffer out = ByteBuffer.wrap((text + "\n").getBytes(StandardCharsets.US_ASCII));
+            synchronized (this) {
+                if (dropped) return;
+                if (pending.isEmpty()) {
+                    try {
+                        channel.write(out);
+                    } catch (IOException e) {
+                        loop.execute(this::close);
+                        return;
+                    }
+                    if (!out.hasRemaining()) return;
+                }
+                if (pendingBytes + out.remaining() > MAX_PENDING_BYTES) {
+                    dropped = true;
+                    pending.clear();
+                    loop.execute(this::close);
+                    return;
+                }
+                pending.add(out);
+                pendingBytes += out.remaining();
+            }
+            loop.execute(() -> {
+                if (key.isValid()) key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            });
+        }
+
+        synchronized void flush() {
+            try {
+                while (!pending.isEmpty()) {
+                    ByteBuffer out = pending.peek();
+                    pendingBytes -= channel.write(out);
+                    if (out.hasRemaining()) return;
+                    pending.poll();
+                }
+                key.interestOps(SelectionKey.OP_READ);
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            leaveMatch(this);
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // already closed
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args != null && args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        MatchServer server = new MatchServer(port);
+        System.out.println("Minesweeper match server listening on port " + server.getPort());
+    }
+}
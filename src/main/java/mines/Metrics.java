@@ -0,0 +1,175 @@
+package mines;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Process-wide counters and latency histograms, readable over JMX as
+// mines:type=Metrics once register() has run.
+//
+// Off by default, so engines playing thousands of simulated games pay one
+// volatile read per timed section. The game turns it on at startup; tools
+// can flip it over JMX. Timing follows one pattern:
+//
+//   long start = Metrics.start();
+//   ...
+//   Metrics.PAINT.recordSince(start);
+final class Metrics implements MetricsMXBean {
+
+    static final String OBJECT_NAME = "mines:type=Metrics";
+
+    private static final Metrics INSTANCE = new Metrics();
+    private static volatile boolean enabled;
+
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    static final Counter MOVES          = counter("moves");
+    static final Counter CELLS_FLOODED  = counter("floodFill.cells");
+    static final Counter GAMES          = counter("games");
+
+    static final Histogram MOVE       = histogram("move");
+    static final Histogram FLOOD_FILL = histogram("floodFill");
+    static final Histogram NEW_GAME   = histogram("newGame");
+    static final Histogram PAINT      = histogram("paint");
+
+    private Metrics() {
+    }
+
+    static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new Counter());
+    }
+
+    static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    // Start of a timed section, or 0 when metrics are off.
+    static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    static boolean enabled() { return enabled; }
+    static void enable(boolean on) { enabled = on; }
+
+    // Registers the MXBean with the platform server; later calls do nothing.
+    static void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // already registered
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+        }
+    }
+
+    static Metrics get() { return INSTANCE; }
+
+    // MXBEAN
+
+    @Override
+    public boolean isEnabled() { return enabled; }
+
+    @Override
+    public void setEnabled(boolean on) { enabled = on; }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> values.put(name, counter.get()));
+        return values;
+    }
+
+    @Override
+    public Map<String, Latency> getLatencies() {
+        Map<String, Latency> values = new TreeMap<>();
+        HISTOGRAMS.forEach((name, histogram) -> values.put(name, histogram.snapshot()));
+        return values;
+    }
+
+    @Override
+    public void reset() {
+        COUNTERS.values().forEach(Counter::reset);
+        HISTOGRAMS.values().forEach(Histogram::reset);
+    }
+
+    // METRIC TYPES
+
+    static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        void increment() {
+            if (enabled) value.increment();
+        }
+
+        void add(long n) {
+            if (enabled) value.add(n);
+        }
+
+        long get() { return value.sum(); }
+        void reset() { value.reset(); }
+    }
+
+    // Bucket i holds durations of i significant bits, i.e. below 2^i ns, so
+    // 64 buckets cover everything with constant memory and no locking.
+    static final class Histogram {
+        private static final int BUCKETS = 64;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void recordSince(long start) {
+            if (start != 0L) record(System.nanoTime() - start);
+        }
+
+        void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos)));
+            count.increment();
+            sum.add(nanos);
+            if (nanos > max.get()) max.accumulateAndGet(nanos, Math::max);
+        }
+
+        long count() { return count.sum(); }
+        long max() { return max.get(); }
+
+        // Upper bound, in ns, of the bucket holding the given fraction.
+        long percentile(double fraction) {
+            long total = count.sum();
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(fraction * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) return Math.min(max.get(), i == 0 ? 0 : (1L << i) - 1);
+            }
+            return max.get();
+        }
+
+        MetricsMXBean.Latency snapshot() {
+            long n = count.sum();
+            double mean = n == 0 ? 0 : sum.sum() / (double) n;
+            return new MetricsMXBean.Latency(n, mean / 1000.0, percentile(0.5) / 1000.0,
+                    percentile(0.99) / 1000.0, max.get() / 1000.0);
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+            count.reset();
+            sum.reset();
+            max.set(0);
+        }
+    }
+}
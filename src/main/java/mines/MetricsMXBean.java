@@ -0,0 +1,39 @@
+package mines;
+
+import java.util.Map;
+
+// What jconsole / VisualVM see under mines:type=Metrics.
+public interface MetricsMXBean {
+
+    boolean isEnabled();
+    void setEnabled(boolean enabled);
+
+    Map<String, Long> getCounters();
+    Map<String, Latency> getLatencies();
+
+    void reset();
+
+    // One histogram, in microseconds. Percentiles are bucket upper bounds,
+    // so they are at most twice the true value.
+    final class Latency {
+        private final long count;
+        private final double meanMicros;
+        private final double p50Micros;
+        private final double p99Micros;
+        private final double maxMicros;
+
+        public Latency(long count, double meanMicros, double p50Micros, double p99Micros, double maxMicros) {
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() { return count; }
+        public double getMeanMicros() { return meanMicros; }
+        public double getP50Micros() { return p50Micros; }
+        public double getP99Micros() { return p99Micros; }
+        public double getMaxMicros() { return maxMicros; }
+    }
+}
@@ -0,0 +1,542 @@
+package mines;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// Exact chance that each covered cell holds a mine, given what the players
+// can see (revealed numbers; flags are not trusted, as in Solver).
+//
+// Covered cells next to a number form the frontier. Numbers that share no
+// cell split it into independent components, each of which is counted on
+// its own into "solutions with k mines" and "solutions with k mines where
+// cell i is a mine", by dynamic programming rather than by listing every
+// solution (see Component.enumerate). The remaining covered cells are interior: every
+// way of putting the other mines there is equally likely, so a component
+// solution with k mines is weighted by C(interior, minesLeft - k).
+//
+// Component results are cached by their cells and numbers. A move only
+// changes the components around it, so the others come from the cache;
+// the changed ones are enumerated in parallel. Not thread-safe.
+final class MineProbabilities {
+
+    // Work allowed per component, in array cells added up by enumerate(),
+    // which also bounds the memory it holds. A component that needs more
+    // leaves the whole board unknown (NaN) instead of stalling the caller:
+    // every component shares the mines left, so dropping one would skew the
+    // others and the interior.
+    static final long DEFAULT_NODE_LIMIT = 20_000_000L;
+
+    private final long nodeLimit;
+    private boolean complete;
+
+    private int rows;
+    private int cols;
+    private double[] probability = new double[0];
+    private double interiorProbability;
+    private int[] componentOf = new int[0];
+
+    private Map<Key, Component> cache = new HashMap<>();
+    private int enumerated;
+
+    // log(n!) for the interior weights
+    private double[] logFactorial = {0};
+
+    MineProbabilities() {
+        this(DEFAULT_NODE_LIMIT);
+    }
+
+    MineProbabilities(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    void compute(GameEngine engine) {
+        compute(engine.getCells(), engine.getRows(), engine.getCols(), engine.getTotalMines());
+    }
+
+    void compute(PackedCells cells, int rows, int cols, int totalMines) {
+        if (rows != this.rows || cols != this.cols) {
+            cache.clear();  // positions mean other cells now
+            probability = new double[rows * cols];
+            componentOf = new int[rows * cols];
+        }
+        this.rows = rows;
+        this.cols = cols;
+        int size = rows * cols;
+        ensureLogFactorial(size);
+
+        Component[] components = findComponents(cells, size);
+
+        // Enumerate only what the cache does not already know
+        Map<Key, Component> nextCache = new HashMap<>();
+        int[] todo = new int[components.length];
+        int todoCount = 0;
+        for (int c = 0; c < components.length; c++) {
+            Component cached = cache.get(components[c].key);
+            if (cached != null) {
+                components[c] = cached;
+            } else {
+                todo[todoCount++] = c;
+            }
+            nextCache.put(components[c].key, components[c]);
+        }
+        IntStream stream = IntStream.of(Arrays.copyOf(todo, todoCount));
+        if (todoCount > 1) stream = stream.parallel();
+        stream.forEach(c -> components[c].enumerate(nodeLimit));
+        cache = nextCache;
+        enumerated = todoCount;
+
+        int interior = 0;
+        int revealedMines = 0;
+        for (int pos = 0; pos < size; pos++) {
+            if (cells.isRevealed(pos)) {
+                if (cells.isMine(pos)) revealedMines++;
+            } else if (componentOf[pos] < 0) {
+                interior++;
+            }
+        }
+        combine(cells, components, size, interior, totalMines - revealedMines);
+    }
+
+    // Probability that the cell is a mine: 0 or 1 when certain, NaN for
+    // revealed cells, and for every cell when !isComplete().
+    double probability(int pos) { return probability[pos]; }
+
+    // False when a component ran out of work in the last compute().
+    boolean isComplete() { return complete; }
+
+    // Same value for every covered cell away from the numbers.
+    double interiorProbability() { return interiorProbability; }
+
+    // Covered cell least likely to be a mine, or -1 when there is none.
+    int safestCell() {
+        int best = -1;
+        for (int pos = 0; pos < probability.length; pos++) {
+            double p = probability[pos];
+            if (!Double.isNaN(p) && (best < 0 || p < probability[best])) best = pos;
+        }
+        return best;
+    }
+
+    // Components enumerated by the last compute(); the rest were cached.
+    int enumeratedComponents() { return enumerated; }
+
+    // COMPONENTS
+
+    private Component[] findComponents(PackedCells cells, int size) {
+        Arrays.fill(componentOf, -1);
+        int[] members = new int[16];
+        Component[] found = new Component[8];
+        int count = 0;
+
+        for (int start = 0; start < size; start++) {
+            if (componentOf[start] >= 0 || !isFrontier(cells, start)) continue;
+
+            // Breadth-first over frontier cells that share a number; the
+            // members list is the queue
+            int id = count;
+            int n = 0;
+            int head = 0;
+            members[n++] = start;
+            componentOf[start] = id;
+            while (head < n) {
+                int p = members[head++];
+                int row = p / cols;
+                int col = p % cols;
+                for (int dr = -2; dr <= 2; dr++) {
+                    for (int dc = -2; dc <= 2; dc++) {
+                        int nr = row + dr;
+                        int nc = col + dc;
+                        if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                        int np = nr * cols + nc;
+                        if (componentOf[np] >= 0 || !isFrontier(cells, np) || !shareNumber(cells, p, np)) continue;
+                        componentOf[np] = id;
+                        if (n == members.length) members = Arrays.copyOf(members, n * 2);
+                        members[n++] = np;
+                    }
+                }
+            }
+            if (count == found.length) found = Arrays.copyOf(found, count * 2);
+            found[count++] = new Component(cells, Arrays.copyOf(members, n));
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private boolean isFrontier(PackedCells cells, int pos) {
+        if (cells.isRevealed(pos)) return false;
+        int row = pos / cols;
+        int col = pos % cols;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int nr = row + dr;
+                int nc = col + dc;
+                if ((dr != 0 || dc != 0) && nr >= 0 && nr < rows && nc >= 0 && nc < cols
+                        && isNumber(cells, nr * cols + nc)) return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean shareNumber(PackedCells cells, int a, int b) {
+        int rowA = a / cols;
+        int colA = a % cols;
+        int rowB = b / cols;
+        int colB = b % cols;
+        for (int r = Math.max(rowA, rowB) - 1; r <= Math.min(rowA, rowB) + 1; r++) {
+            for (int c = Math.max(colA, colB) - 1; c <= Math.min(colA, colB) + 1; c++) {
+                if (r >= 0 && r < rows && c >= 0 && c < cols && isNumber(cells, r * cols + c)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNumber(PackedCells cells, int pos) {
+        return cells.isRevealed(pos) && !cells.isMine(pos);
+    }
+
+    // One frontier component: its cells, in breadth-first order so that the
+    // numbers open at any point are about one wavefront, and the numbers
+    // bounding them.
+    private final class Component {
+        final int[] cells;
+        final int[] targets;          // mines still needed per number
+        final int[][] cellsOf;        // local cell indices per number
+        final int[][] numbersOf;      // number indices per local cell
+        final Key key;
+
+        // counts[k]: solutions with k mines; mineCounts[k][i]: those where cell i is a mine
+        double[] counts;
+        double[][] mineCounts;
+        boolean complete;
+
+        Component(PackedCells board, int[] members) {
+            this.cells = members;
+            int n = members.length;
+
+            // Numbers next to any member, found through the member cells
+            int[] numberPos = new int[8 * n];
+            int numbers = 0;
+            for (int p : members) {
+                int row = p / cols;
+                int col = p % cols;
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        int nr = row + dr;
+                        int nc = col + dc;
+                        if ((dr == 0 && dc == 0) || nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                        int np = nr * cols + nc;
+                        if (isNumber(board, np)) numberPos[numbers++] = np;
+                    }
+                }
+            }
+            Arrays.sort(numberPos, 0, numbers);
+            int unique = 0;
+            for (int i = 0; i < numbers; i++) {
+                if (unique == 0 || numberPos[unique - 1] != numberPos[i]) numberPos[unique++] = numberPos[i];
+            }
+
+            targets = new int[unique];
+            cellsOf = new int[unique][];
+            int[] perCell = new int[n];
+            int[] local = new int[8];
+            for (int j = 0; j < unique; j++) {
+                int np = numberPos[j];
+                int target = board.count(np);
+                int m = 0;
+                int row = np / cols;
+                int col = np % cols;
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        int nr = row + dr;
+                        int nc = col + dc;
+                        if ((dr == 0 && dc == 0) || nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                        int q = nr * cols + nc;
+                        if (board.isRevealed(q)) {
+                            if (board.isMine(q)) target--;
+                            continue;
+                        }
+                        int i = indexOf(members, q);
+                        local[m++] = i;
+                        perCell[i]++;
+                    }
+                }
+                targets[j] = target;
+                cellsOf[j] = Arrays.copyOf(local, m);
+            }
+            numbersOf = new int[n][];
+            for (int i = 0; i < n; i++) numbersOf[i] = new int[perCell[i]];
+            Arrays.fill(perCell, 0);
+            for (int j = 0; j < unique; j++) {
+                for (int i : cellsOf[j]) numbersOf[i][perCell[i]++] = j;
+            }
+
+            // Cells sorted, then number positions and targets
+            int[] keyData = new int[n + 1 + 2 * unique];
+            int[] sorted = members.clone();
+            Arrays.sort(sorted);
+            System.arraycopy(sorted, 0, keyData, 0, n);
+            keyData[n] = -1;
+            for (int j = 0; j < unique; j++) {
+                keyData[n + 1 + 2 * j] = numberPos[j];
+                keyData[n + 2 + 2 * j] = targets[j];
+            }
+            key = new Key(keyData);
+        }
+
+        // Dynamic programming over the cells in order. After deciding a prefix
+        // of the cells, all that matters for the rest is how many mines each
+        // number still open (with cells on both sides) has got so far, so
+        // prefixes that agree on that are counted once instead of searched
+        // again. A forward pass counts the prefixes reaching each state by
+        // mines used, a backward pass the ways to finish from it, and every
+        // cell's mine counts come from joining the two around that cell.
+        // Work is counted in array cells added; past `limit` the component
+        // is left incomplete.
+        void enumerate(long limit) {
+            int n = cells.length;
+            Step[] steps = steps(n);
+            Key none = new Key(new int[0]);
+            long work = 0;
+
+            List<Map<Key, double[]>> forward = new ArrayList<>(n + 1);
+            forward.add(new HashMap<>());
+            forward.get(0).put(none, new double[] {1});
+            for (int i = 0; i < n; i++) {
+                Map<Key, double[]> next = new HashMap<>();
+                for (Map.Entry<Key, double[]> e : forward.get(i).entrySet()) {
+                    double[] from = e.getValue();
+                    for (int mine = 0; mine <= 1; mine++) {
+                        Key state = steps[i].next(e.getKey().data, mine == 1);
+                        if (state == null) continue;
+                        double[] to = next.get(state);
+                        if (to == null) next.put(state, to = new double[i + 2]);
+                        for (int k = 0; k < from.length; k++) to[k + mine] += from[k];
+                        work += from.length;
+                    }
+                }
+                if (work > limit) {
+                    complete = false;
+                    return;
+                }
+                forward.add(next);
+            }
+
+            counts = new double[n + 1];
+            mineCounts = new double[n + 1][n];
+            double[] all = forward.get(n).get(none);
+            if (all != null) System.arraycopy(all, 0, counts, 0, all.length);
+
+            Map<Key, double[]> after = new HashMap<>();
+            after.put(none, new double[] {1});
+            for (int i = n - 1; i >= 0; i--) {
+                Map<Key, double[]> before = new HashMap<>();
+                for (Map.Entry<Key, double[]> e : forward.get(i).entrySet()) {
+                    double[] prefix = e.getValue();
+                    double[] ways = new double[n - i + 1];
+                    boolean any = false;
+                    for (int mine = 0; mine <= 1; mine++) {
+                        Key state = steps[i].next(e.getKey().data, mine == 1);
+                        double[] rest = state == null ? null : after.get(state);
+                        if (rest == null) continue;
+                        any = true;
+                        for (int k = 0; k < rest.length; k++) ways[k + mine] += rest[k];
+                        if (mine == 1) {
+                            for (int a = 0; a < prefix.length; a++) {
+                                if (prefix[a] == 0) continue;
+                                for (int b = 0; b < rest.length; b++) mineCounts[a + 1 + b][i] += prefix[a] * rest[b];
+                            }
+                            work += (long) prefix.length * rest.length;
+                        }
+                    }
+                    if (any) before.put(e.getKey(), ways);
+                }
+                if (work > limit) {
+                    complete = false;
+                    return;
+                }
+                after = before;
+                forward.set(i + 1, null);
+            }
+            complete = true;
+        }
+
+        // The open numbers before each cell, and how deciding the cell moves
+        // from one state to the next.
+        private Step[] steps(int n) {
+            int[] first = new int[targets.length];
+            int[] last = new int[targets.length];
+            for (int j = 0; j < targets.length; j++) {
+                first[j] = n;
+                last[j] = -1;
+                for (int i : cellsOf[j]) {
+                    first[j] = Math.min(first[j], i);
+                    last[j] = Math.max(last[j], i);
+                }
+            }
+            int[][] open = new int[n + 1][];
+            int[] buffer = new int[targets.length];
+            for (int i = 0; i <= n; i++) {
+                int m = 0;
+                for (int j = 0; j < targets.length; j++) {
+                    if (first[j] < i && last[j] >= i) buffer[m++] = j;
+                }
+                open[i] = Arrays.copyOf(buffer, m);
+            }
+            Step[] steps = new Step[n];
+            for (int i = 0; i < n; i++) steps[i] = new Step(i, open[i], open[i + 1]);
+            return steps;
+        }
+
+        private final class Step {
+            final int[] numbers;      // numbers next to the cell
+            final int[] numberSlot;   // their slot in the state before, or -1 for a first cell
+            final int[] remaining;    // their cells after this one
+            final int[] slotFrom;     // per slot of the state after: slot before, or -1
+            final boolean[] slotNext; // per slot of the state after: next to the cell
+
+            Step(int cell, int[] before, int[] next) {
+                numbers = numbersOf[cell];
+                numberSlot = new int[numbers.length];
+                remaining = new int[numbers.length];
+                for (int q = 0; q < numbers.length; q++) {
+                    numberSlot[q] = indexOf(before, numbers[q]);
+                    for (int i : cellsOf[numbers[q]]) if (i > cell) remaining[q]++;
+                }
+                slotFrom = new int[next.length];
+                slotNext = new boolean[next.length];
+                for (int slot = 0; slot < next.length; slot++) {
+                    slotFrom[slot] = indexOf(before, next[slot]);
+                    slotNext[slot] = indexOf(numbers, next[slot]) >= 0;
+                }
+            }
+
+            // State after the cell, or null when a number can no longer be met.
+            Key next(int[] placed, boolean mine) {
+                int add = mine ? 1 : 0;
+                for (int q = 0; q < numbers.length; q++) {
+                    int count = (numberSlot[q] >= 0 ? placed[numberSlot[q]] : 0) + add;
+                    int target = targets[numbers[q]];
+                    if (count > target || count + remaining[q] < target) return null;
+                }
+                int[] state = new int[slotFrom.length];
+                for (int slot = 0; slot < state.length; slot++) {
+                    state[slot] = (slotFrom[slot] >= 0 ? placed[slotFrom[slot]] : 0) + (slotNext[slot] ? add : 0);
+                }
+                return new Key(state);
+            }
+        }
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) return i;
+        }
+        return -1;
+    }
+
+    // COMBINING
+
+    private void combine(PackedCells cells, Component[] components, int size, int interior, int minesLeft) {
+        Arrays.fill(probability, Double.NaN);
+        interiorProbability = Double.NaN;
+        complete = false;
+        for (Component c : components) {
+            if (!c.complete) return;
+        }
+        complete = true;
+
+        // Mine-count distribution of every component together
+        double[] all = {1};
+        for (Component c : components) all = convolve(all, c.counts);
+        double[] interiorWeight = interiorWeights(interior, minesLeft, all.length);
+        double total = dot(all, interiorWeight, 0);
+        if (total == 0) return;
+
+        double interiorMines = 0;
+        for (int k = 0; k < all.length; k++) {
+            if (interior > 0) interiorMines += all[k] * interiorWeight[k] * (minesLeft - k) / interior;
+        }
+        interiorProbability = interior > 0 ? interiorMines / total : Double.NaN;
+
+        for (Component c : components) {
+            // Distribution of the other components, weighted by the interior
+            double[] others = {1};
+            for (Component o : components) {
+                if (o != c) others = convolve(others, o.counts);
+            }
+            double[] weight = new double[c.counts.length];
+            for (int k = 0; k < weight.length; k++) weight[k] = dot(others, interiorWeight, k);
+
+            for (int i = 0; i < c.cells.length; i++) {
+                double m = 0;
+                for (int k = 0; k < c.counts.length; k++) m += c.mineCounts[k][i] * weight[k];
+                probability[c.cells[i]] = m / total;
+            }
+        }
+        for (int pos = 0; pos < size; pos++) {
+            if (!cells.isRevealed(pos) && componentOf[pos] < 0) probability[pos] = interiorProbability;
+        }
+    }
+
+    // interiorWeight[k] = C(interior, minesLeft - k), scaled so the largest is 1
+    private double[] interiorWeights(int interior, int minesLeft, int length) {
+        double[] logs = new double[length];
+        double max = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < length; k++) {
+            int rest = minesLeft - k;
+            logs[k] = rest < 0 || rest > interior ? Double.NEGATIVE_INFINITY
+                    : logFactorial[interior] - logFactorial[rest] - logFactorial[interior - rest];
+            max = Math.max(max, logs[k]);
+        }
+        double[] weights = new double[length];
+        if (max == Double.NEGATIVE_INFINITY) return weights;
+        for (int k = 0; k < length; k++) weights[k] = Math.exp(logs[k] - max);
+        return weights;
+    }
+
+    // Sum of a[j] * w[j + shift]
+    private static double dot(double[] a, double[] w, int shift) {
+        double sum = 0;
+        for (int j = 0; j < a.length && j + shift < w.length; j++) sum += a[j] * w[j + shift];
+        return sum;
+    }
+
+    private static double[] convolve(double[] a, double[] b) {
+        double[] out = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == 0) continue;
+            for (int j = 0; j < b.length; j++) out[i + j] += a[i] * b[j];
+        }
+        return out;
+    }
+
+    private void ensureLogFactorial(int size) {
+        if (logFactorial.length > size) return;
+        int from = logFactorial.length;
+        logFactorial = Arrays.copyOf(logFactorial, size + 1);
+        for (int i = from; i <= size; i++) logFactorial[i] = logFactorial[i - 1] + Math.log(i);
+    }
+
+    private static final class Key {
+        private final int[] data;
+        private final int hash;
+
+        Key(int[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(data, ((Key) o).data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
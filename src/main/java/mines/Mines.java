@@ -1,37 +1,84 @@
 package mines;
 
 import java.awt.BorderLayout;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JScrollPane;
 
 // Source: http://zetcode.com/tutorials/javagamestutorial/minesweeper/
 
 public class Mines extends JFrame {
     private static final long serialVersionUID = 4772165125287256837L;
 
-    private static final int WIDTH  = 256;
-    private static final int HEIGHT = 288 + 29;
-
     private JLabel statusbar;
 
     public Mines() {
+        this(BoardConfig.INTERMEDIATE);
+    }
+
+    Mines(BoardConfig config) {
+        this(null, config, false);
+    }
+
+    // A practice game, where moves can be undone.
+    Mines(BoardConfig config, boolean practice) {
+        this(null, config, practice);
+    }
+
+    // An endless game instead of a board of fixed size.
+    Mines(EndlessWorld world) {
+        this(world, null, false);
+    }
+
+    private Mines(EndlessWorld world, BoardConfig config, boolean practice) {
 
         setDefaultCloseOperation(javax.swing.WindowConstants.EXIT_ON_CLOSE);
-        setSize(WIDTH, HEIGHT);
-        setLocationRelativeTo(null);
         setTitle("Minesweeper");
 
         statusbar = new JLabel("");
         add(statusbar, BorderLayout.SOUTH);
 
-        add(new Board(statusbar));
+        if (world != null) {
+            add(new EndlessBoard(statusbar, world));
+        } else {
+            // The scroll pane only asks the board to paint what is visible
+            Board board = new Board(statusbar, config);
+            board.setPractice(practice);
+            add(new JScrollPane(board));
+        }
 
-        setResizable(false);
+        setResizable(true);
+        pack();
+        setLocationRelativeTo(null);
         setVisible(true);
     }
     
+    // `--bot` serves BotProtocol on stdin/stdout instead of opening a window;
+    // `--endless [seed]` plays an EndlessWorld; `--practice` before the board
+    // size allows undo.
     public static void main(String[] args) {
-        new Mines();
+        if (args != null && args.length > 0 && "--bot".equals(args[0])) {
+            try {
+                new BotProtocol(System.in, System.out).run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return;
+        }
+        SpriteAtlas.preload();  // decode the tiles while the frame is built
+        Metrics.enable(true);
+        Metrics.register();
+        if (args != null && args.length > 0 && "--endless".equals(args[0])) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+            new Mines(EndlessBoard.newWorld(seed));
+            return;
+        }
+        boolean practice = args != null && args.length > 0 && "--practice".equals(args[0]);
+        if (practice) args = Arrays.copyOfRange(args, 1, args.length);
+        new Mines(BoardConfig.fromArgs(args), practice);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,145 @@
+package mines;
+
+import java.util.Arrays;
+
+// Undo/redo history for one game, kept as the cells each move changed
+// rather than as board snapshots: one change for a flag, one per uncovered
+// cell for a reveal. Undoing or redoing a move costs what the move changed.
+//
+// Entry i is moves[i] with its changes at changes[starts[i] .. starts[i + 1]),
+// Moves-encoded like the engine's batch log. Entries below `position` are on
+// the board and can be undone; the rest can be redone until a new move
+// replaces them. When the buffers outgrow `maxBytes` the oldest entries are
+// dropped, checked as each move starts.
+final class MoveHistory {
+
+    static final long DEFAULT_MAX_BYTES = 4L << 20;
+
+    // Per entry: the move and where its changes start
+    private static final int ENTRY_BYTES = Long.BYTES + Integer.BYTES;
+    private static final int CHANGE_BYTES = Long.BYTES;
+
+    private final long maxBytes;
+
+    private long[] moves = new long[64];
+    private int[] starts = new int[64];
+    private int size;
+    private int position;
+
+    private long[] changes = new long[256];
+    private int changeCount;
+
+    // Set while the engine re-applies moves[position]; its changes are
+    // already here.
+    private boolean redoing;
+
+    MoveHistory() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    MoveHistory(long maxBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        this.maxBytes = maxBytes;
+    }
+
+    void clear() {
+        size = 0;
+        position = 0;
+        changeCount = 0;
+        redoing = false;
+    }
+
+    // RECORDING, called by the engine
+
+    void beginMove(long move) {
+        if (redoing) {
+            position++;
+            return;
+        }
+        if (position < size) {
+            // a new move replaces whatever could be redone
+            changeCount = starts[position];
+            size = position;
+        }
+        if (bytes() > maxBytes) evict();
+
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+        }
+        moves[size] = move;
+        starts[size] = changeCount;
+        size++;
+        position++;
+    }
+
+    void change(long change) {
+        if (redoing || size == 0) return;
+        if (changeCount == changes.length) {
+            changes = Arrays.copyOf(changes, changeCount * 2);
+        }
+        changes[changeCount++] = change;
+    }
+
+    // Forgets the newest `count` entries, for moves that were taken back
+    // without being undone, like a refused batch.
+    void dropNewest(int count) {
+        int keep = Math.max(0, position - count);
+        changeCount = firstChangeFrom(keep);
+        size = keep;
+        position = keep;
+    }
+
+    // UNDO & REDO, driven by the engine
+
+    boolean canUndo() { return position > 0; }
+    boolean canRedo() { return position < size; }
+
+    // The entry the next undo() takes back, or the next redo() re-applies.
+    int undoEntry() { return position - 1; }
+    int redoEntry() { return position; }
+
+    long move(int entry) { return moves[entry]; }
+    int start(int entry) { return starts[entry]; }
+    int end(int entry) { return entry + 1 < size ? starts[entry + 1] : changeCount; }
+    long changeAt(int index) { return changes[index]; }
+
+    void stepBack() { position--; }
+
+    void beginRedo() { redoing = true; }
+    void endRedo() { redoing = false; }
+
+    int size() { return size; }
+    int position() { return position; }
+    long maxBytes() { return maxBytes; }
+
+    long bytes() {
+        return (long) size * ENTRY_BYTES + (long) changeCount * CHANGE_BYTES;
+    }
+
+    // Drops oldest entries down to three quarters of the cap, so eviction
+    // is not paid again on the very next move.
+    private void evict() {
+        long target = maxBytes - maxBytes / 4;
+        int drop = 0;
+        while (drop < position && bytesWithout(drop) > target) drop++;
+        if (drop == 0) return;
+
+        int firstKept = firstChangeFrom(drop);
+        System.arraycopy(moves, drop, moves, 0, size - drop);
+        System.arraycopy(starts, drop, starts, 0, size - drop);
+        for (int i = 0; i < size - drop; i++) starts[i] -= firstKept;
+        System.arraycopy(changes, firstKept, changes, 0, changeCount - firstKept);
+        size -= drop;
+        position -= drop;
+        changeCount -= firstKept;
+    }
+
+    private long bytesWithout(int oldest) {
+        return (long) (size - oldest) * ENTRY_BYTES + (long) (changeCount - firstChangeFrom(oldest)) * CHANGE_BYTES;
+    }
+
+    private int firstChangeFrom(int entry) {
+        return entry < size ? starts[entry] : changeCount;
+    }
+}
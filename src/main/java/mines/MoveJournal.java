@@ -0,0 +1,179 @@
+package mines;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+// Append-only record of one game: its config and seed plus every move that
+// changed the board, as Moves-encoded longs (8 bytes per move). Replaying
+// rebuilds the state after any number of moves on a plain GameEngine.
+//
+// Replays depend on the seed reproducing the board, so they need the
+// default SplitMixRandom; games dealt from a SecureRandom cannot be replayed.
+//
+// Stream layout (big-endian): int magic 'MJNL', short version, short flags,
+// int rows, cols, mines, long seed, int move count, then the moves.
+// Version 1 journals are still read; they only know FLAG_OPENED.
+final class MoveJournal {
+
+    static final int MAGIC = 0x4D4A4E4C;
+    static final short VERSION = 2;
+    static final int HEADER_BYTES = 4 + 2 + 2 + 4 * 3 + 8 + 4;
+
+    // The deal uncovered the opening area (no-guess games).
+    private static final int FLAG_OPENED = 1;
+    // Mines were placed on the first reveal (version 2). Version 1 games were
+    // all dealt up front.
+    private static final int FLAG_FIRST_CLICK_SAFE = 2;
+    // Flags each version may set; any other bit is refused.
+    private static final int[] KNOWN_FLAGS = {0, FLAG_OPENED, FLAG_OPENED | FLAG_FIRST_CLICK_SAFE};
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private BoardConfig config;
+    private long seed;
+    private boolean opened;
+    private boolean firstClickSafe;
+    private long[] moves = new long[64];
+    private int size;
+
+    void start(BoardConfig config, long seed, boolean opened, boolean firstClickSafe) {
+        this.config = config;
+        this.seed = seed;
+        this.opened = opened;
+        this.firstClickSafe = firstClickSafe;
+        this.size = 0;
+    }
+
+    void append(long move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    // Drops the moves after the first `size`, for moves that were undone.
+    void truncate(int size) {
+        if (size < this.size) this.size = size;
+    }
+
+    int size() { return size; }
+    long get(int index) { return moves[index]; }
+    BoardConfig getConfig() { return config; }
+    long getSeed() { return seed; }
+    boolean isOpened() { return opened; }
+    boolean isFirstClickSafe() { return firstClickSafe; }
+
+    // REPLAY
+
+    GameEngine replay(int moveCount) {
+        GameEngine engine = new GameEngine(config);
+        replayInto(engine, moveCount);
+        return engine;
+    }
+
+    // Restarts `engine` on the recorded board and applies the first
+    // `moveCount` moves. Reusing one engine keeps replays allocation-free
+    // once its storage matches the board size.
+    void replayInto(GameEngine engine, int moveCount) {
+        if (engine.getJournal() == this) {
+            throw new IllegalArgumentException("Cannot replay a journal into the engine recording it");
+        }
+        if (moveCount < 0 || moveCount > size) {
+            throw new IndexOutOfBoundsException("Move " + moveCount + " of " + size);
+        }
+        engine.dealGame(config, seed, opened, firstClickSafe);
+        for (int i = 0; i < moveCount; i++) {
+            if (!engine.apply(moves[i])) {
+                throw new IllegalStateException("Replay diverged at move " + i + ": " + Moves.toString(moves[i]));
+            }
+        }
+    }
+
+    // PERSISTENCE
+
+    void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort((short) ((opened ? FLAG_OPENED : 0) | (firstClickSafe ? FLAG_FIRST_CLICK_SAFE : 0)));
+        buffer.putInt(config.getRows());
+        buffer.putInt(config.getCols());
+        buffer.putInt(config.getMines());
+        buffer.putLong(seed);
+        buffer.putInt(size);
+        for (int i = 0; i < size; i++) {
+            if (buffer.remaining() < Long.BYTES) flush(channel, buffer);
+            buffer.putLong(moves[i]);
+        }
+        flush(channel, buffer);
+    }
+
+    static MoveJournal readFrom(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        buffer.limit(HEADER_BYTES);
+        readFully(channel, buffer);
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a move journal");
+        }
+        short version = buffer.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported move journal version " + version);
+        }
+        short flags = buffer.getShort();
+        if ((flags & ~KNOWN_FLAGS[version]) != 0) {
+            throw new IOException("Unknown move journal flags " + flags + " in version " + version);
+        }
+        int rows = buffer.getInt();
+        int cols = buffer.getInt();
+        int mines = buffer.getInt();
+        long seed = buffer.getLong();
+        int count = buffer.getInt();
+        if (count < 0) {
+            throw new IOException("Corrupt move journal: " + count + " moves");
+        }
+
+        MoveJournal journal = new MoveJournal();
+        try {
+            journal.start(BoardConfig.custom(rows, cols, mines), seed,
+                    (flags & FLAG_OPENED) != 0, (flags & FLAG_FIRST_CLICK_SAFE) != 0);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt move journal: " + e.getMessage(), e);
+        }
+        // The count is only a claim until the moves are read: grow with them,
+        // so a corrupt header ends in an EOFException rather than a huge array
+        journal.moves = new long[Math.max(1, Math.min(count, BUFFER_BYTES / Long.BYTES))];
+
+        // Never read past the last move, so a journal can be followed by other data
+        long unread = (long) count * Long.BYTES;
+        for (int i = 0; i < count; i++) {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                buffer.limit((int) Math.min(BUFFER_BYTES, unread));
+                unread -= buffer.limit();
+                readFully(channel, buffer);
+            }
+            journal.append(buffer.getLong());
+        }
+        return journal;
+    }
+
+    private static void flush(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new EOFException("Truncated move journal");
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,38 @@
+package mines;
+
+// A move packed into a long: bit 0 is the player, bits 1-2 the action and
+// bits 8 and up the cell position. Journals, replays and batch callers all
+// use this encoding.
+final class Moves {
+
+    static final int REVEAL = 0;
+    static final int FLAG   = 1;
+    static final int UNFLAG = 2;
+    // Only in change logs, never a move: the mines were placed around this
+    // cell, by the first reveal of a first-click-safe game.
+    static final int DEAL   = 3;
+
+    // Per-move results of GameEngine.applyBatch()
+    static final int APPLIED       = 0;
+    static final int NOT_YOUR_TURN = 1;
+    static final int GAME_OVER     = 2;  // also every move after one that ended the game
+    static final int ILLEGAL       = 3;  // bad position, or the cell does not allow it
+    static final int ROLLED_BACK   = 4;  // was legal, undone because a later move was refused
+    static final int NOT_TRIED     = 5;  // came after a refused move
+
+    private Moves() {
+    }
+
+    static long encode(int pos, int action, int player) {
+        return ((long) pos << 8) | (action << 1) | player;
+    }
+
+    static int position(long move) { return (int) (move >>> 8); }
+    static int action(long move) { return (int) (move >>> 1) & 3; }
+    static int player(long move) { return (int) move & 1; }
+
+    static String toString(long move) {
+        String[] names = {"REVEAL", "FLAG", "UNFLAG", "DEAL"};
+        return "P" + (player(move) + 1) + " " + names[action(move)] + " " + position(move);
+    }
+}
@@ -0,0 +1,96 @@
+package mines;
+
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Searches for boards that the Solver clears from the opening area without
+// ever guessing.
+//
+// Candidates are dealt from seeds derived from the requested one and checked
+// by one worker per pool thread, each with its own engine and solver. The
+// first board to pass wins and the other workers stop at their next
+// candidate. Which worker wins first is not fixed, so the chosen seed can
+// differ between runs; engines record the winning seed, so replays still
+// deal the same board. When the time budget runs out nothing is returned,
+// and callers must not pass the requested board off as a no-guess one.
+//
+// Boards are checked on engines with the default SplitMixRandom, so only
+// such engines deal the board a found seed stands for.
+final class NoGuessGenerator {
+
+    static final long DEFAULT_BUDGET_MILLIS = 2000;
+
+    private final ForkJoinPool pool;
+    private final long budgetMillis;
+
+    NoGuessGenerator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BUDGET_MILLIS);
+    }
+
+    NoGuessGenerator(ForkJoinPool pool, long budgetMillis) {
+        this.pool = pool;
+        this.budgetMillis = budgetMillis;
+    }
+
+    // Returns the seed of a no-guess board for `config`, or nothing when none
+    // was found within the budget.
+    OptionalLong find(BoardConfig config, long seed) {
+        CompletableFuture<Long> winner = new CompletableFuture<>();
+        AtomicLong nextCandidate = new AtomicLong();
+        int workers = pool.getParallelism();
+        for (int i = 0; i < workers; i++) {
+            pool.execute(() -> search(config, seed, nextCandidate, winner));
+        }
+        try {
+            return OptionalLong.of(winner.get(budgetMillis, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException | ExecutionException e) {
+            return OptionalLong.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return OptionalLong.empty();
+        } finally {
+            // stops the workers that are still searching
+            winner.complete(seed);
+        }
+    }
+
+    private static void search(BoardConfig config, long seed, AtomicLong nextCandidate,
+                               CompletableFuture<Long> winner) {
+        GameEngine engine = new GameEngine(config);
+        Solver solver = new Solver();
+        while (!winner.isDone()) {
+            long candidate = candidateSeed(seed, nextCandidate.getAndIncrement());
+            if (isSolvableWithoutGuessing(engine, solver, config, candidate)) {
+                winner.complete(candidate);
+            }
+        }
+    }
+
+    // Candidate 0 is the requested seed, so a board that already qualifies
+    // is kept.
+    static long candidateSeed(long seed, long index) {
+        return index == 0 ? seed : new SplitMixRandom(seed + index).nextLong();
+    }
+
+    // Deals `seed` with its opening and reveals every cell the solver proves
+    // safe until it either clears the board or gets stuck.
+    static boolean isSolvableWithoutGuessing(GameEngine engine, Solver solver, BoardConfig config, long seed) {
+        engine.dealGame(config, seed, true);
+        if (!engine.hasOpening()) return false;
+
+        int safeCells = engine.getAllCells() - engine.getTotalMines();
+        while (engine.getUncoveredSafeCells() < safeCells) {
+            solver.solve(engine);
+            if (solver.safeCount() == 0) return false;
+            for (int i = 0; i < solver.safeCount(); i++) {
+                engine.reveal(solver.safeCell(i));
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,159 @@
+package mines;
+
+import java.util.Arrays;
+
+// Compact cell storage: one bit each for mine, revealed and "flagged by
+// player N", plus a 4-bit neighbour count. About 1 byte per cell with two
+// players, against 8 bytes for the old field/markers int arrays.
+//
+// Counts are filled in lazily by the engine; a cell's count is only valid
+// once isCounted() says so.
+final class PackedCells {
+
+    static final int PLAYERS = 2;
+
+    private final int size;
+    private final long[] mines;
+    private final long[] revealed;
+    private final long[][] flags;
+    private final byte[] counts;
+    private final long[] counted;
+
+    PackedCells(int size) {
+        this.size = size;
+        int words = (size + 63) >>> 6;
+        mines = new long[words];
+        revealed = new long[words];
+        flags = new long[PLAYERS][words];
+        counts = new byte[(size + 1) >>> 1];
+        counted = new long[words];
+    }
+
+    void clear() {
+        Arrays.fill(mines, 0L);
+        Arrays.fill(revealed, 0L);
+        for (long[] playerFlags : flags) {
+            Arrays.fill(playerFlags, 0L);
+        }
+        Arrays.fill(counts, (byte) 0);
+        Arrays.fill(counted, 0L);
+    }
+
+    // Clears the mines and every neighbour count, keeping reveals and flags.
+    void clearMines() {
+        Arrays.fill(mines, 0L);
+        Arrays.fill(counts, (byte) 0);
+        Arrays.fill(counted, 0L);
+    }
+
+    int size() { return size; }
+
+    boolean isMine(int pos) { return get(mines, pos); }
+    void setMine(int pos, boolean mine) { set(mines, pos, mine); }
+
+    // First mine at or after `from`, or -1.
+    int nextMine(int from) {
+        if (from >= size) return -1;
+        int word = from >>> 6;
+        long bits = mines[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) return (word << 6) + Long.numberOfTrailingZeros(bits);
+            if (++word == mines.length) return -1;
+            bits = mines[word];
+        }
+    }
+
+    boolean isRevealed(int pos) { return get(revealed, pos); }
+    void setRevealed(int pos, boolean open) { set(revealed, pos, open); }
+
+    boolean isFlagged(int pos) {
+        int word = pos >>> 6;
+        return ((flags[0][word] | flags[1][word]) & (1L << pos)) != 0;
+    }
+
+    // Player who flagged the cell, or GameEngine.NO_PLAYER.
+    int flagOwner(int pos) {
+        if (get(flags[0], pos)) return 0;
+        if (get(flags[1], pos)) return 1;
+        return GameEngine.NO_PLAYER;
+    }
+
+    void setFlag(int pos, int player) {
+        clearFlag(pos);
+        set(flags[player], pos, true);
+    }
+
+    void clearFlag(int pos) {
+        set(flags[0], pos, false);
+        set(flags[1], pos, false);
+    }
+
+    int count(int pos) {
+        int b = counts[pos >>> 1];
+        return (pos & 1) == 0 ? b & 0x0F : (b >>> 4) & 0x0F;
+    }
+
+    boolean isCounted(int pos) { return get(counted, pos); }
+
+    void setCount(int pos, int count) {
+        set(counted, pos, true);
+        int i = pos >>> 1;
+        int b = counts[i];
+        counts[i] = (byte) ((pos & 1) == 0 ? (b & 0xF0) | count : (b & 0x0F) | (count << 4));
+    }
+
+    void incrementCount(int pos) {
+        setCount(pos, count(pos) + 1);
+    }
+
+    // COUNTS OVER WHOLE BOARD, one popcount per 64 cells
+
+    int countRevealedSafe() {
+        int n = 0;
+        for (int i = 0; i < mines.length; i++) n += Long.bitCount(revealed[i] & ~mines[i]);
+        return n;
+    }
+
+    int countFlags(int player) {
+        int n = 0;
+        for (long word : flags[player]) n += Long.bitCount(word);
+        return n;
+    }
+
+    int countFlaggedMines() {
+        int n = 0;
+        for (int i = 0; i < mines.length; i++) n += Long.bitCount((flags[0][i] | flags[1][i]) & mines[i]);
+        return n;
+    }
+
+    int countFlaggedSafe() {
+        int n = 0;
+        for (int i = 0; i < mines.length; i++) n += Long.bitCount((flags[0][i] | flags[1][i]) & ~mines[i]);
+        return n;
+    }
+
+    // BIT PLANES
+    // Mines, revealed, then one flag plane per player. Neighbour counts are
+    // derived from the mines and are not part of any plane.
+
+    static final int PLANES = 2 + PLAYERS;
+
+    long[] plane(int index) {
+        switch (index) {
+            case 0: return mines;
+            case 1: return revealed;
+            default: return flags[index - 2];
+        }
+    }
+
+    int wordsPerPlane() { return mines.length; }
+
+    private static boolean get(long[] bits, int pos) {
+        return (bits[pos >>> 6] & (1L << pos)) != 0;
+    }
+
+    private static void set(long[] bits, int pos, boolean value) {
+        if (value) bits[pos >>> 6] |= 1L << pos;
+        else bits[pos >>> 6] &= ~(1L << pos);
+    }
+}
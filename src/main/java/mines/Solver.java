@@ -0,0 +1,288 @@
+package mines;
+
+import java.util.Arrays;
+
+// Finds the covered cells that are certainly safe or certainly mines, using
+// only what the players can see: revealed numbers and, if trusted, flags.
+//
+// Every revealed number with covered neighbours is a constraint "these
+// cells hold exactly m mines". Constraints are first solved on their own
+// (m == 0 or m == number of cells), then in pairs of overlapping
+// constraints, which covers the subset rule and the 1-2 patterns, and
+// finally against the total number of mines left. Rules repeat until
+// nothing new is found.
+//
+// All state lives in primitive arrays that are reused across calls, so an
+// instance costs nothing per move once sized. Not thread-safe.
+final class Solver {
+
+    static final byte UNKNOWN = 0;
+    static final byte SAFE    = 1;
+    static final byte MINE    = 2;
+
+    private static final int MAX_NEIGHBOURS = 8;
+
+    // Flags can be wrong in a two-player game, so by default a flagged cell
+    // is just another covered cell.
+    private final boolean trustFlags;
+
+    private int rows;
+    private int cols;
+    private byte[] state = new byte[0];
+    private int[] constraintAt = new int[0];
+
+    // Constraint i covers consCells[i * 8 .. i * 8 + consSize[i]) and has
+    // consMines[i] mines among them. Solved constraints shrink to size 0.
+    private int constraints;
+    private int[] consPos = new int[0];
+    private int[] consSize = new int[0];
+    private int[] consMines = new int[0];
+    private int[] consCells = new int[0];
+
+    private int[] safeCells = new int[0];
+    private int safeCount;
+    private int[] mineCells = new int[0];
+    private int mineCount;
+
+    Solver() {
+        this(false);
+    }
+
+    Solver(boolean trustFlags) {
+        this.trustFlags = trustFlags;
+    }
+
+    int solve(GameEngine engine) {
+        return solve(engine.getCells(), engine.getRows(), engine.getCols(), engine.getTotalMines());
+    }
+
+    // Returns how many covered cells were found certain; read them back with
+    // safeCell()/mineCell() or isSafe()/isMine().
+    int solve(PackedCells cells, int rows, int cols, int totalMines) {
+        this.rows = rows;
+        this.cols = cols;
+        int size = rows * cols;
+        ensureCapacity(size);
+
+        for (int pos = 0; pos < size; pos++) {
+            if (cells.isRevealed(pos)) {
+                // a revealed mine only exists once the game is lost
+                state[pos] = cells.isMine(pos) ? MINE : SAFE;
+            } else if (trustFlags && cells.isFlagged(pos)) {
+                state[pos] = MINE;
+            } else {
+                state[pos] = UNKNOWN;
+            }
+        }
+
+        buildConstraints(cells, size);
+
+        boolean changed = true;
+        while (changed) {
+            changed = applySinglePointRules();
+            if (!changed) changed = applyPairRules();
+            if (!changed) changed = applyMineTotal(size, totalMines);
+        }
+
+        collectResults(cells, size);
+        return safeCount + mineCount;
+    }
+
+    int safeCount() { return safeCount; }
+    int safeCell(int index) { return safeCells[index]; }
+    int mineCount() { return mineCount; }
+    int mineCell(int index) { return mineCells[index]; }
+
+    boolean isSafe(int pos) { return state[pos] == SAFE; }
+    boolean isMine(int pos) { return state[pos] == MINE; }
+
+    // CONSTRAINTS
+
+    private void buildConstraints(PackedCells cells, int size) {
+        constraints = 0;
+        for (int pos = 0; pos < size; pos++) {
+            constraintAt[pos] = -1;
+            if (!cells.isRevealed(pos) || cells.isMine(pos)) continue;
+
+            int c = constraints;
+            int base = c * MAX_NEIGHBOURS;
+            int n = 0;
+            int mines = cells.count(pos);
+            int row = pos / cols;
+            int col = pos % cols;
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dr == 0 && dc == 0) continue;
+                    int nr = row + dr;
+                    int nc = col + dc;
+                    if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                    int np = nr * cols + nc;
+                    if (state[np] == UNKNOWN) consCells[base + n++] = np;
+                    else if (state[np] == MINE) mines--;
+                }
+            }
+            if (n == 0) continue;
+
+            consPos[c] = pos;
+            consSize[c] = n;
+            consMines[c] = mines;
+            constraintAt[pos] = c;
+            constraints++;
+        }
+    }
+
+    // Drops cells decided since the constraint was last looked at.
+    private void compact(int c) {
+        int base = c * MAX_NEIGHBOURS;
+        int n = 0;
+        for (int i = 0; i < consSize[c]; i++) {
+            int p = consCells[base + i];
+            if (state[p] == UNKNOWN) consCells[base + n++] = p;
+            else if (state[p] == MINE) consMines[c]--;
+        }
+        consSize[c] = n;
+    }
+
+    private boolean applySinglePointRules() {
+        boolean changed = false;
+        for (int c = 0; c < constraints; c++) {
+            if (consSize[c] == 0) continue;
+            compact(c);
+            int n = consSize[c];
+            int mines = consMines[c];
+            if (n == 0 || mines < 0 || mines > n) {
+                // solved, or inconsistent because a trusted flag was wrong
+                consSize[c] = 0;
+                continue;
+            }
+            if (mines == 0 || mines == n) {
+                byte value = mines == 0 ? SAFE : MINE;
+                int base = c * MAX_NEIGHBOURS;
+                for (int i = 0; i < n; i++) state[consCells[base + i]] = value;
+                consSize[c] = 0;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // Two constraints can only overlap when their numbers are at most two
+    // rows and two columns apart.
+    private boolean applyPairRules() {
+        boolean changed = false;
+        for (int a = 0; a < constraints; a++) {
+            if (consSize[a] == 0) continue;
+            int row = consPos[a] / cols;
+            int col = consPos[a] % cols;
+            for (int dr = -2; dr <= 2; dr++) {
+                for (int dc = -2; dc <= 2; dc++) {
+                    int nr = row + dr;
+                    int nc = col + dc;
+                    if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                    int b = constraintAt[nr * cols + nc];
+                    if (b <= a || consSize[b] == 0) continue;
+                    compact(a);
+                    compact(b);
+                    if (consSize[a] == 0) break;
+                    if (consSize[b] != 0 && applyPair(a, b)) changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    // With s mines in the shared cells, A's own cells hold mA - s and B's own
+    // cells mB - s. Bounding s from both sides can decide either remainder.
+    private boolean applyPair(int a, int b) {
+        int baseA = a * MAX_NEIGHBOURS;
+        int baseB = b * MAX_NEIGHBOURS;
+        int sizeA = consSize[a];
+        int sizeB = consSize[b];
+
+        int shared = 0;
+        for (int i = 0; i < sizeA; i++) {
+            if (contains(baseB, sizeB, consCells[baseA + i])) shared++;
+        }
+        if (shared == 0) return false;
+
+        int onlyA = sizeA - shared;
+        int onlyB = sizeB - shared;
+        int minesA = consMines[a];
+        int minesB = consMines[b];
+        int maxShared = Math.min(shared, Math.min(minesA, minesB));
+        int minShared = Math.max(0, Math.max(minesA - onlyA, minesB - onlyB));
+
+        boolean changed = false;
+        if (onlyA > 0) {
+            if (minesA - minShared == 0) changed |= mark(baseA, sizeA, baseB, sizeB, SAFE);
+            else if (minesA - maxShared == onlyA) changed |= mark(baseA, sizeA, baseB, sizeB, MINE);
+        }
+        if (onlyB > 0) {
+            if (minesB - minShared == 0) changed |= mark(baseB, sizeB, baseA, sizeA, SAFE);
+            else if (minesB - maxShared == onlyB) changed |= mark(baseB, sizeB, baseA, sizeA, MINE);
+        }
+        return changed;
+    }
+
+    // Marks the cells of one constraint that are not in the other.
+    private boolean mark(int base, int size, int otherBase, int otherSize, byte value) {
+        boolean changed = false;
+        for (int i = 0; i < size; i++) {
+            int p = consCells[base + i];
+            if (state[p] == UNKNOWN && !contains(otherBase, otherSize, p)) {
+                state[p] = value;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private boolean contains(int base, int size, int pos) {
+        for (int i = 0; i < size; i++) {
+            if (consCells[base + i] == pos) return true;
+        }
+        return false;
+    }
+
+    // Once every remaining mine is accounted for, or every covered cell must
+    // be a mine, the rest of the board is decided too.
+    private boolean applyMineTotal(int size, int totalMines) {
+        int unknown = 0;
+        int mines = 0;
+        for (int pos = 0; pos < size; pos++) {
+            if (state[pos] == UNKNOWN) unknown++;
+            else if (state[pos] == MINE) mines++;
+        }
+        int left = totalMines - mines;
+        if (unknown == 0 || (left != 0 && left != unknown)) return false;
+
+        byte value = left == 0 ? SAFE : MINE;
+        for (int pos = 0; pos < size; pos++) {
+            if (state[pos] == UNKNOWN) state[pos] = value;
+        }
+        return true;
+    }
+
+    private void collectResults(PackedCells cells, int size) {
+        safeCount = 0;
+        mineCount = 0;
+        for (int pos = 0; pos < size; pos++) {
+            if (cells.isRevealed(pos) || (trustFlags && cells.isFlagged(pos))) continue;
+            if (state[pos] == SAFE) safeCells[safeCount++] = pos;
+            else if (state[pos] == MINE) mineCells[mineCount++] = pos;
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (state.length == size) return;
+        state = new byte[size];
+        constraintAt = new int[size];
+        consPos = new int[size];
+        consSize = new int[size];
+        consMines = new int[size];
+        consCells = new int[size * MAX_NEIGHBOURS];
+        safeCells = new int[size];
+        mineCells = new int[size];
+        Arrays.fill(constraintAt, -1);
+    }
+}
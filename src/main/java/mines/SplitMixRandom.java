@@ -0,0 +1,41 @@
+package mines;
+
+import java.util.Random;
+
+// SplitMix64 generator. Much cheaper per draw than Random (no atomic seed
+// update) or SecureRandom, and setSeed() makes the sequence fully
+// reproducible. Not thread-safe; give each engine its own instance.
+class SplitMixRandom extends Random {
+
+    private static final long serialVersionUID = -2416359230413788231L;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    SplitMixRandom() {
+        super();
+    }
+
+    SplitMixRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        state = seed;
+        super.setSeed(seed);  // also clears Random's cached nextGaussian
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public long nextLong() {
+        long z = (state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,96 @@
+package mines;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+
+// The cell tiles 0.gif .. 14.gif, decoded once per JVM into a single strip
+// in the screen's native pixel format and shared by every Board.
+//
+// Each cell size gets its own strip, scaled once from the decoded tiles.
+// preload() decodes on a background thread so the first frame does not wait
+// on image IO; forSize() waits for that or loads synchronously.
+final class SpriteAtlas {
+
+    static final int TILES = 15;
+    static final int SOURCE_SIZE = 15;
+
+    private static final Map<Integer, SpriteAtlas> BY_SIZE = new ConcurrentHashMap<>();
+    private static volatile CompletableFuture<BufferedImage[]> sources;
+
+    private final BufferedImage strip;
+    private final int size;
+
+    private SpriteAtlas(BufferedImage[] tiles, int size) {
+        this.size = size;
+        strip = createImage(TILES * size, size);
+        Graphics2D g = strip.createGraphics();
+        if (size != SOURCE_SIZE) {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        }
+        for (int i = 0; i < TILES; i++) {
+            g.drawImage(tiles[i], i * size, 0, size, size, null);
+        }
+        g.dispose();
+    }
+
+    // Starts decoding the tiles off the calling thread; later calls are free.
+    static CompletableFuture<BufferedImage[]> preload() {
+        CompletableFuture<BufferedImage[]> loading = sources;
+        if (loading == null) {
+            synchronized (SpriteAtlas.class) {
+                if (sources == null) sources = CompletableFuture.supplyAsync(SpriteAtlas::decodeTiles);
+                loading = sources;
+            }
+        }
+        return loading;
+    }
+
+    static SpriteAtlas forSize(int size) {
+        return BY_SIZE.computeIfAbsent(size, s -> new SpriteAtlas(preload().join(), s));
+    }
+
+    int size() { return size; }
+
+    void draw(Graphics g, int tile, int x, int y) {
+        int sx = tile * size;
+        g.drawImage(strip, x, y, x + size, y + size, sx, 0, sx + size, size, null);
+    }
+
+    private static BufferedImage[] decodeTiles() {
+        BufferedImage[] tiles = new BufferedImage[TILES];
+        ClassLoader loader = SpriteAtlas.class.getClassLoader();
+        for (int i = 0; i < TILES; i++) {
+            try (InputStream in = loader.getResourceAsStream(i + ".gif")) {
+                if (in == null) throw new IOException("Missing tile " + i + ".gif");
+                tiles[i] = ImageIO.read(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return tiles;
+    }
+
+    // Matches the display's format where there is one, so drawing the strip
+    // is a plain copy instead of a per-pixel conversion.
+    private static BufferedImage createImage(int width, int height) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            return gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+}
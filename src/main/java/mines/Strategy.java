@@ -0,0 +1,116 @@
+package mines;
+
+import java.util.Random;
+
+// A bot for one seat of a two-player game. The simulator asks the player to
+// move for one move at a time until the turn passes (a reveal) or the game
+// ends, so a strategy may flag several cells before revealing one.
+//
+// Each instance plays one game at a time on one thread and may keep state
+// between calls; newGame() tells it the board has changed completely.
+interface Strategy {
+
+    // Returned when the player has no legal move left.
+    long NO_MOVE = -1L;
+
+    // Next move for engine.getCurrentPlayer(), encoded with Moves. Any
+    // randomness must come from `random` so that games can be replayed.
+    long nextMove(GameEngine engine, Random random);
+
+    default void newGame(GameEngine engine) {
+    }
+
+    // "random" or "solver"; null for an unknown name.
+    static Strategy named(String name) {
+        switch (name.toLowerCase()) {
+            case "random": return new RandomReveal();
+            case "solver": return new SolverFlagger();
+            default:       return null;
+        }
+    }
+
+    // Reveals covered cells at random and never flags until only mines are
+    // left to flag.
+    final class RandomReveal implements Strategy {
+        @Override
+        public long nextMove(GameEngine engine, Random random) {
+            if (onlyMinesLeft(engine)) return flagRest(engine);
+            int pos = randomCovered(engine, random);
+            return pos >= 0 ? Moves.encode(pos, Moves.REVEAL, engine.getCurrentPlayer()) : NO_MOVE;
+        }
+    }
+
+    // Takes every flag the Solver can prove, then reveals a proven safe cell,
+    // and guesses at random only when nothing is certain. Own flags that turn
+    // out wrong are lifted so they cannot block the end of the game.
+    final class SolverFlagger implements Strategy {
+        private final Solver solver = new Solver();
+        private int solvedAt;
+        private int nextMine;
+        private int nextSafe;
+
+        @Override
+        public void newGame(GameEngine engine) {
+            solvedAt = -1;
+        }
+
+        @Override
+        public long nextMove(GameEngine engine, Random random) {
+            // Flags do not change what the solver sees, so its answer holds
+            // until someone reveals a cell.
+            if (engine.getUncoveredSafeCells() != solvedAt) {
+                solver.solve(engine);
+                solvedAt = engine.getUncoveredSafeCells();
+                nextMine = 0;
+                nextSafe = 0;
+            }
+            PackedCells cells = engine.getCells();
+            int player = engine.getCurrentPlayer();
+
+            while (nextMine < solver.mineCount()) {
+                int pos = solver.mineCell(nextMine++);
+                if (!cells.isFlagged(pos)) return Moves.encode(pos, Moves.FLAG, player);
+            }
+            while (nextSafe < solver.safeCount()) {
+                int pos = solver.safeCell(nextSafe);
+                if (cells.flagOwner(pos) == player) return Moves.encode(pos, Moves.UNFLAG, player);
+                nextSafe++;
+                if (!cells.isRevealed(pos) && !cells.isFlagged(pos)) return Moves.encode(pos, Moves.REVEAL, player);
+            }
+            if (onlyMinesLeft(engine)) return flagRest(engine);
+            int pos = randomCovered(engine, random);
+            return pos >= 0 ? Moves.encode(pos, Moves.REVEAL, player) : NO_MOVE;
+        }
+    }
+
+    // A covered, unflagged cell picked uniformly, or -1 when there is none.
+    static int randomCovered(GameEngine engine, Random random) {
+        PackedCells cells = engine.getCells();
+        int size = engine.getAllCells();
+        int open = size - engine.getUncoveredSafeCells()
+                - engine.getPlayerFlags(0) - engine.getPlayerFlags(1);
+        if (open <= 0) return -1;
+        int skip = random.nextInt(open);
+        for (int pos = 0; pos < size; pos++) {
+            if (cells.isRevealed(pos) || cells.isFlagged(pos)) continue;
+            if (skip-- == 0) return pos;
+        }
+        return -1;
+    }
+
+    static boolean onlyMinesLeft(GameEngine engine) {
+        return engine.getUncoveredSafeCells() == engine.getAllCells() - engine.getTotalMines();
+    }
+
+    // Once only mines are covered the game is won by flagging them; this
+    // flags the next one, or gives up when nothing is left to flag.
+    static long flagRest(GameEngine engine) {
+        PackedCells cells = engine.getCells();
+        for (int pos = 0; pos < engine.getAllCells(); pos++) {
+            if (!cells.isRevealed(pos) && !cells.isFlagged(pos)) {
+                return Moves.encode(pos, Moves.FLAG, engine.getCurrentPlayer());
+            }
+        }
+        return NO_MOVE;
+    }
+}
@@ -0,0 +1,118 @@
+package mines;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+// Plays many headless games between two strategies on all cores.
+//
+// Game i deals its board and draws its random moves from seed + i alone, so
+// results do not depend on the number of threads. Boards are dealt in full
+// from the seed rather than around the first reveal, so a game's board does
+// not depend on where the first player opens. Strategy A takes the first
+// seat in even games and the second in odd ones, so neither side keeps the
+// first move.
+final class Tournament {
+
+    // Games stuck longer than this many moves per cell are counted as unfinished.
+    private static final int MOVES_PER_CELL = 4;
+
+    private final BoardConfig config;
+    private final Supplier<Strategy> strategyA;
+    private final Supplier<Strategy> strategyB;
+
+    Tournament(BoardConfig config, Supplier<Strategy> strategyA, Supplier<Strategy> strategyB) {
+        this.config = config;
+        this.strategyA = strategyA;
+        this.strategyB = strategyB;
+    }
+
+    TournamentResult run(long games, long seed) {
+        return run(games, seed, Runtime.getRuntime().availableProcessors());
+    }
+
+    TournamentResult run(long games, long seed, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<TournamentResult>> parts = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                parts.add(pool.submit(() -> play(first, threads, games, seed)));
+            }
+            TournamentResult total = new TournamentResult(config.getMines());
+            for (Future<TournamentResult> part : parts) {
+                total.merge(part.get());
+            }
+            total.setTiming(System.nanoTime() - start, threads);
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tournament interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tournament game failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Plays games first, first + step, ... on one thread with its own engine.
+    private TournamentResult play(long first, int step, long games, long seed) {
+        GameEngine engine = new GameEngine(config);
+        engine.setFirstClickSafe(false);
+        Strategy a = strategyA.get();
+        Strategy b = strategyB.get();
+        Strategy[] seats = new Strategy[2];
+        SplitMixRandom random = new SplitMixRandom();
+        TournamentResult result = new TournamentResult(config.getMines());
+        int moveLimit = MOVES_PER_CELL * config.getAllCells();
+
+        for (long game = first; game < games; game += step) {
+            // the board seed comes first, the strategies' draws follow it
+            random.setSeed(seed + game);
+            engine.newGame(random.nextLong());
+            int playerA = (int) (game & 1);
+            seats[playerA] = a;
+            seats[1 - playerA] = b;
+            a.newGame(engine);
+            b.newGame(engine);
+
+            boolean finished = playOut(engine, seats, random, moveLimit);
+            result.record(engine, playerA, finished);
+        }
+        return result;
+    }
+
+    // Returns false when the game stalled: no legal move, or the move limit.
+    static boolean playOut(GameEngine engine, Strategy[] seats, Random random, int moveLimit) {
+        for (int moves = 0; engine.isInGame(); moves++) {
+            if (moves == moveLimit) return false;
+            long move = seats[engine.getCurrentPlayer()].nextMove(engine, random);
+            if (move == Strategy.NO_MOVE || !engine.apply(move)) return false;
+        }
+        return true;
+    }
+
+    // Usage: Tournament [games] [strategyA] [strategyB] [preset | rows cols mines]
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        String nameA = args.length > 1 ? args[1] : "solver";
+        String nameB = args.length > 2 ? args[2] : "random";
+        String[] boardArgs = new String[Math.max(0, args.length - 3)];
+        System.arraycopy(args, Math.min(3, args.length), boardArgs, 0, boardArgs.length);
+        BoardConfig config = BoardConfig.fromArgs(boardArgs);
+
+        if (Strategy.named(nameA) == null || Strategy.named(nameB) == null) {
+            System.err.println("Unknown strategy; use \"random\" or \"solver\"");
+            System.exit(2);
+        }
+        Tournament tournament = new Tournament(config, () -> Strategy.named(nameA), () -> Strategy.named(nameB));
+        System.out.println("Board " + config);
+        System.out.print(tournament.run(games, System.nanoTime()).report(nameA, nameB));
+    }
+}
@@ -0,0 +1,159 @@
+package mines;
+
+import java.util.Locale;
+
+// Tallies of a tournament between strategies A and B, from A's side. Each
+// worker fills its own instance; merge() adds them up at the end.
+final class TournamentResult {
+
+    // 95% two-sided normal quantile
+    private static final double Z = 1.959964;
+
+    private long games;
+    private long winsA;
+    private long winsB;
+    private long draws;
+    private long unfinished;
+    private long mineHitsA;
+    private long mineHitsB;
+    // flagsA[n]: games A finished with n flags
+    private final long[] flagsA;
+    private final long[] flagsB;
+
+    private long elapsedNanos;
+    private int threads;
+
+    TournamentResult(int mines) {
+        flagsA = new long[mines + 1];
+        flagsB = new long[mines + 1];
+    }
+
+    // `playerA` is the seat A played; the engine holds the finished game.
+    void record(GameEngine engine, int playerA, boolean finished) {
+        games++;
+        int playerB = 1 - playerA;
+        if (!finished) {
+            unfinished++;
+        } else if (!engine.isGameWon()) {
+            // the player to move is the one who hit the mine
+            if (engine.getCurrentPlayer() == playerA) {
+                mineHitsA++;
+                winsB++;
+            } else {
+                mineHitsB++;
+                winsA++;
+            }
+        } else {
+            int a = engine.getPlayerFlags(playerA);
+            int b = engine.getPlayerFlags(playerB);
+            if (a > b) winsA++;
+            else if (b > a) winsB++;
+            else draws++;
+        }
+        flagsA[Math.min(engine.getPlayerFlags(playerA), flagsA.length - 1)]++;
+        flagsB[Math.min(engine.getPlayerFlags(playerB), flagsB.length - 1)]++;
+    }
+
+    void merge(TournamentResult other) {
+        games += other.games;
+        winsA += other.winsA;
+        winsB += other.winsB;
+        draws += other.draws;
+        unfinished += other.unfinished;
+        mineHitsA += other.mineHitsA;
+        mineHitsB += other.mineHitsB;
+        for (int i = 0; i < flagsA.length; i++) {
+            flagsA[i] += other.flagsA[i];
+            flagsB[i] += other.flagsB[i];
+        }
+    }
+
+    void setTiming(long elapsedNanos, int threads) {
+        this.elapsedNanos = elapsedNanos;
+        this.threads = threads;
+    }
+
+    long getGames() { return games; }
+    long getWinsA() { return winsA; }
+    long getWinsB() { return winsB; }
+    long getDraws() { return draws; }
+    long getUnfinished() { return unfinished; }
+    long getMineHitsA() { return mineHitsA; }
+    long getMineHitsB() { return mineHitsB; }
+    long[] getFlagsA() { return flagsA.clone(); }
+    long[] getFlagsB() { return flagsB.clone(); }
+
+    double gamesPerSecondPerCore() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos / threads;
+    }
+
+    // Wilson score interval for `hits` out of `games`: {low, high}.
+    double[] confidenceInterval(long hits) {
+        if (games == 0) return new double[]{0, 1};
+        double n = games;
+        double p = hits / n;
+        double centre = (p + Z * Z / (2 * n)) / (1 + Z * Z / n);
+        double half = Z * Math.sqrt(p * (1 - p) / n + Z * Z / (4 * n * n)) / (1 + Z * Z / n);
+        // the bounds are exactly 0 and 1 at the extremes, whatever the rounding
+        double low = hits == 0 ? 0 : Math.max(0, centre - half);
+        double high = hits == games ? 1 : Math.min(1, centre + half);
+        return new double[]{low, high};
+    }
+
+    // Mean of a flag histogram and the half-width of its 95% interval.
+    static double[] meanWithMargin(long[] histogram) {
+        long n = 0;
+        double sum = 0;
+        double squares = 0;
+        for (int flags = 0; flags < histogram.length; flags++) {
+            n += histogram[flags];
+            sum += (double) flags * histogram[flags];
+            squares += (double) flags * flags * histogram[flags];
+        }
+        if (n == 0) return new double[]{0, 0};
+        double mean = sum / n;
+        double variance = n > 1 ? (squares - n * mean * mean) / (n - 1) : 0;
+        return new double[]{mean, Z * Math.sqrt(Math.max(0, variance) / n)};
+    }
+
+    // Smallest flag count reached by at least `fraction` of the games.
+    static int percentile(long[] histogram, double fraction) {
+        long n = 0;
+        for (long count : histogram) n += count;
+        long target = (long) Math.ceil(fraction * n);
+        long seen = 0;
+        for (int flags = 0; flags < histogram.length; flags++) {
+            seen += histogram[flags];
+            if (seen >= target && seen > 0) return flags;
+        }
+        return 0;
+    }
+
+    String report(String nameA, String nameB) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%d games, %s (A) vs %s (B)%n", games, nameA, nameB));
+        rate(sb, "A wins", winsA);
+        rate(sb, "B wins", winsB);
+        rate(sb, "Draws", draws);
+        rate(sb, "Unfinished", unfinished);
+        rate(sb, "A hit a mine", mineHitsA);
+        rate(sb, "B hit a mine", mineHitsB);
+        flags(sb, "A flags", flagsA);
+        flags(sb, "B flags", flagsB);
+        sb.append(String.format(Locale.ROOT, "%.0f games/s/core on %d threads%n", gamesPerSecondPerCore(), threads));
+        return sb.toString();
+    }
+
+    private void rate(StringBuilder sb, String label, long hits) {
+        double[] ci = confidenceInterval(hits);
+        sb.append(String.format(Locale.ROOT, "%-13s %6.2f%%  [%6.2f%%, %6.2f%%]%n",
+                label, games == 0 ? 0 : 100.0 * hits / games, 100 * ci[0], 100 * ci[1]));
+    }
+
+    private static void flags(StringBuilder sb, String label, long[] histogram) {
+        double[] mean = meanWithMargin(histogram);
+        sb.append(String.format(Locale.ROOT, "%-13s mean %.2f +/- %.2f, p10 %d, median %d, p90 %d%n",
+                label, mean[0], mean[1], percentile(histogram, 0.1), percentile(histogram, 0.5),
+                percentile(histogram, 0.9)));
+    }
+}
@@ -0,0 +1,186 @@
+package mines;
+
+import java.util.Arrays;
+
+// Connected regions of zero cells on a dealt board, with the numbered cells
+// around them, as one flat cell list per region, so that uncovering a
+// region is a walk down its list instead of a flood fill.
+//
+// Regions are labelled on demand: the first time a cell of a region is
+// asked for, one search over the region lists it, and every later request
+// for any of its cells, such as a redo or a replayed reveal, reuses the
+// list. The search counts the neighbours of just the region and its border,
+// which are the cells a reveal uncovers anyway, so the engine's counts stay
+// lazy on boards of any size.
+//
+// Region r holds cells[start(r) .. end(r)): its zero cells from start(r),
+// then from borderStart(r) the other cells touching them, each once. A cell
+// between two regions is listed in both. Labels cost 4 bytes per cell once
+// a board has a labelled region, plus 4 bytes per listed cell; every array
+// is kept for the next board and only grows.
+final class ZeroRegions {
+
+    // Largest array the VM will allocate
+    private static final int MAX_ARRAY = Integer.MAX_VALUE - 8;
+
+    private int rows;
+    private int cols;
+    private int regions;
+    private int listed;                    // cells[0 .. listed) are in use
+
+    // region + 1 for labelled zero cells, 0 for every other cell, and
+    // -(region + 1) for a border cell while its region is being listed
+    private int[] regionOf = new int[0];
+
+    private int[] starts = new int[1];     // regions + 1 entries
+    private int[] borderStarts = new int[0];
+    private int[] cells = new int[0];
+    private int[] minRow = new int[0];
+    private int[] maxRow = new int[0];
+    private int[] minCol = new int[0];
+    private int[] maxCol = new int[0];
+
+    // Scratch for the border of the region being listed
+    private int[] border = new int[0];
+
+    // Forgets every region; called whenever mines or counts change. Clears
+    // only the labels of listed cells, not the whole board.
+    void invalidate() {
+        for (int r = 0; r < regions; r++) {
+            for (int i = starts[r], end = borderStarts[r]; i < end; i++) regionOf[cells[i]] = 0;
+        }
+        regions = 0;
+        listed = 0;
+    }
+
+    // Region of the cell `pos` on the engine's board, listing it first if no
+    // cell of it has been asked for yet. -1 when `pos` is not a zero cell, or
+    // when the lists would outgrow an array.
+    int label(GameEngine engine, int pos) {
+        if (pos < regionOf.length && regionOf[pos] > 0) return regionOf[pos] - 1;
+        PackedCells board = engine.getCells();
+        if (board.isMine(pos) || engine.neighborMines(pos) != GameEngine.EMPTY_CELL) return -1;
+
+        if (regions == 0) {
+            rows = engine.getRows();
+            cols = engine.getCols();
+            if (regionOf.length < engine.getAllCells()) regionOf = new int[engine.getAllCells()];
+        }
+        if (!reserveRegion()) return -1;
+
+        // The zero cells are listed as they are found, and the list is also
+        // the search's queue; border cells go to `border` until the end.
+        int r = regions;
+        int start = listed;
+        int borderCount = 0;
+        minRow[r] = minCol[r] = Integer.MAX_VALUE;
+        maxRow[r] = maxCol[r] = Integer.MIN_VALUE;
+        if ((cells = ensure(cells, listed + 1L)) == null) return abandon(r, start, 0);
+        regionOf[pos] = r + 1;
+        cells[listed++] = pos;
+
+        for (int next = start; next < listed; next++) {
+            int p = cells[next];
+            int row = p / cols;
+            int col = p % cols;
+            extend(r, row, col);
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    int nr = row + dr;
+                    int nc = col + dc;
+                    if ((dr == 0 && dc == 0) || nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                    int np = nr * cols + nc;
+                    if (regionOf[np] != 0) continue;  // listed already, here or as a border
+
+                    if (!board.isMine(np) && engine.neighborMines(np) == GameEngine.EMPTY_CELL) {
+                        if ((cells = ensure(cells, listed + 1L)) == null) return abandon(r, start, borderCount);
+                        regionOf[np] = r + 1;
+                        cells[listed++] = np;
+                    } else {
+                        if ((border = ensure(border, borderCount + 1L)) == null) {
+                            return abandon(r, start, borderCount);
+                        }
+                        regionOf[np] = -(r + 1);
+                        border[borderCount++] = np;
+                    }
+                }
+            }
+        }
+
+        if ((cells = ensure(cells, (long) listed + borderCount)) == null) return abandon(r, start, borderCount);
+        borderStarts[r] = listed;
+        for (int i = 0; i < borderCount; i++) {
+            int p = border[i];
+            regionOf[p] = 0;
+            cells[listed++] = p;
+            extend(r, p / cols, p % cols);
+        }
+        starts[r + 1] = listed;
+        regions++;
+        return r;
+    }
+
+    int regionCount() { return regions; }
+
+    // Labelled region of a zero cell, or -1 for any other cell and for zero
+    // cells whose region has not been labelled.
+    int regionOf(int pos) { return pos < regionOf.length && regionOf[pos] > 0 ? regionOf[pos] - 1 : -1; }
+
+    int start(int region) { return starts[region]; }
+    int borderStart(int region) { return borderStarts[region]; }
+    int end(int region) { return starts[region + 1]; }
+    int cell(int index) { return cells[index]; }
+
+    // Bounding box, in rows and columns, of every cell of the region
+    int minRow(int region) { return minRow[region]; }
+    int maxRow(int region) { return maxRow[region]; }
+    int minCol(int region) { return minCol[region]; }
+    int maxCol(int region) { return maxCol[region]; }
+
+    // HELPERS
+
+    // Room for one more region's offsets and bounding box
+    private boolean reserveRegion() {
+        if (regions + 2L > MAX_ARRAY) return false;
+        if (starts.length < regions + 2) {
+            starts = Arrays.copyOf(starts, grown(starts.length, regions + 2L));
+        }
+        if (borderStarts.length < regions + 1) {
+            int length = grown(borderStarts.length, regions + 1L);
+            borderStarts = Arrays.copyOf(borderStarts, length);
+            minRow = Arrays.copyOf(minRow, length);
+            maxRow = Arrays.copyOf(maxRow, length);
+            minCol = Arrays.copyOf(minCol, length);
+            maxCol = Arrays.copyOf(maxCol, length);
+        }
+        starts[regions] = listed;
+        return true;
+    }
+
+    // Takes back a region whose lists did not fit.
+    private int abandon(int region, int start, int borderCount) {
+        for (int i = start; i < listed; i++) regionOf[cells[i]] = 0;
+        for (int i = 0; i < borderCount; i++) regionOf[border[i]] = 0;
+        listed = start;
+        return -1;
+    }
+
+    // `array`, or a copy with at least `needed` entries; null past MAX_ARRAY.
+    private static int[] ensure(int[] array, long needed) {
+        if (needed <= array.length) return array;
+        if (needed > MAX_ARRAY) return null;
+        return Arrays.copyOf(array, grown(array.length, needed));
+    }
+
+    // Doubles, computed in long so it cannot overflow
+    private static int grown(int length, long needed) {
+        return (int) Math.min(MAX_ARRAY, Math.max(needed, Math.max(16L, 2L * length)));
+    }
+
+    private void extend(int region, int row, int col) {
+        if (row < minRow[region]) minRow[region] = row;
+        if (row > maxRow[region]) maxRow[region] = row;
+        if (col < minCol[region]) minCol[region] = col;
+        if (col > maxCol[region]) maxCol[region] = col;
+    }
+}
@@ -0,0 +1,139 @@
+package mines;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// The GameEvents as Flight Recorder events; GameEvents.EVENTS when the JVM
+// has jdk.jfr. A disabled event costs an isEnabled() check on its EventType,
+// and no event object is made for it.
+final class JfrGameEvents extends GameEvents {
+
+    @Name("mines.Move")
+    @Label("Move")
+    @Category("Mines")
+    @Description("A click on the board, from the mouse press to the engine being done")
+    @StackTrace(false)
+    static final class Move extends Event {
+        @Label("Rows") int rows;
+        @Label("Columns") int cols;
+        @Label("Row") int row;
+        @Label("Column") int col;
+        @Label("Action") String action;
+        @Label("Player") int player;
+        @Label("Cells Revealed") int cellsRevealed;
+    }
+
+    @Name("mines.FloodFill")
+    @Label("Flood Fill")
+    @Category("Mines")
+    @Description("Uncovering the area around an empty cell")
+    @StackTrace(false)
+    static final class FloodFill extends Event {
+        @Label("Rows") int rows;
+        @Label("Columns") int cols;
+        @Label("Origin Row") int originRow;
+        @Label("Origin Column") int originCol;
+        @Label("Cells Revealed") int cellsRevealed;
+    }
+
+    @Name("mines.NewGame")
+    @Label("New Game")
+    @Category("Mines")
+    @Description("Dealing a board, including the no-guess search when it is on")
+    @StackTrace(false)
+    static final class NewGame extends Event {
+        @Label("Rows") int rows;
+        @Label("Columns") int cols;
+        @Label("Mines") int mines;
+        @Label("No Guess") boolean noGuess;
+        @Label("Seed") long seed;
+    }
+
+    @Name("mines.Paint")
+    @Label("Paint")
+    @Category("Mines")
+    @Description("One paint() call of a board; the event duration is the paint duration")
+    @StackTrace(false)
+    static final class Paint extends Event {
+        @Label("Rows") int rows;
+        @Label("Columns") int cols;
+        @Label("Cell Size") int cellSize;
+        @Label("Cells Painted") int cellsPainted;
+    }
+
+    private static final EventType MOVE = EventType.getEventType(Move.class);
+    private static final EventType FLOOD_FILL = EventType.getEventType(FloodFill.class);
+    private static final EventType NEW_GAME = EventType.getEventType(NewGame.class);
+    private static final EventType PAINT = EventType.getEventType(Paint.class);
+
+    private static Event begin(Event event) {
+        event.begin();
+        return event;
+    }
+
+    @Override
+    Object beginMove() { return MOVE.isEnabled() ? begin(new Move()) : null; }
+
+    @Override
+    void endMove(Object event, int rows, int cols, int row, int col, String action, int player, int cellsRevealed) {
+        Move move = (Move) event;
+        if (move == null || !move.shouldCommit()) return;
+        move.rows = rows;
+        move.cols = cols;
+        move.row = row;
+        move.col = col;
+        move.action = action;
+        move.player = player;
+        move.cellsRevealed = cellsRevealed;
+        move.commit();
+    }
+
+    @Override
+    Object beginFloodFill() { return FLOOD_FILL.isEnabled() ? begin(new FloodFill()) : null; }
+
+    @Override
+    void endFloodFill(Object event, int rows, int cols, int originRow, int originCol, int cellsRevealed) {
+        FloodFill fill = (FloodFill) event;
+        if (fill == null || !fill.shouldCommit()) return;
+        fill.rows = rows;
+        fill.cols = cols;
+        fill.originRow = originRow;
+        fill.originCol = originCol;
+        fill.cellsRevealed = cellsRevealed;
+        fill.commit();
+    }
+
+    @Override
+    Object beginNewGame() { return NEW_GAME.isEnabled() ? begin(new NewGame()) : null; }
+
+    @Override
+    void endNewGame(Object event, int rows, int cols, int mines, boolean noGuess, long seed) {
+        NewGame game = (NewGame) event;
+        if (game == null || !game.shouldCommit()) return;
+        game.rows = rows;
+        game.cols = cols;
+        game.mines = mines;
+        game.noGuess = noGuess;
+        game.seed = seed;
+        game.commit();
+    }
+
+    @Override
+    Object beginPaint() { return PAINT.isEnabled() ? begin(new Paint()) : null; }
+
+    @Override
+    void endPaint(Object event, int rows, int cols, int cellSize, int cellsPainted) {
+        Paint paint = (Paint) event;
+        if (paint == null || !paint.shouldCommit()) return;
+        paint.rows = rows;
+        paint.cols = cols;
+        paint.cellSize = cellSize;
+        paint.cellsPainted = cellsPainted;
+        paint.commit();
+    }
+}
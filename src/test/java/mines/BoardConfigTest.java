@@ -0,0 +1,47 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardConfigTest {
+
+    @Test
+    void testPresets() {
+        assertEquals(81, BoardConfig.BEGINNER.getAllCells());
+        assertEquals(10, BoardConfig.BEGINNER.getMines());
+        assertEquals(256, BoardConfig.INTERMEDIATE.getAllCells());
+        assertEquals(40, BoardConfig.INTERMEDIATE.getMines());
+        assertEquals(480, BoardConfig.EXPERT.getAllCells());
+        assertEquals(99, BoardConfig.EXPERT.getMines());
+    }
+
+    @Test
+    void testCustomSize() {
+        BoardConfig config = BoardConfig.custom(5000, 4000, 1000000);
+        assertEquals(5000, config.getRows());
+        assertEquals(4000, config.getCols());
+        assertEquals(20000000, config.getAllCells());
+    }
+
+    @Test
+    void testInvalidConfigsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BoardConfig.custom(0, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> BoardConfig.custom(10, 10, 100), "Board needs a safe cell");
+        assertThrows(IllegalArgumentException.class, () -> BoardConfig.custom(10, 10, -1));
+        assertThrows(IllegalArgumentException.class, () -> BoardConfig.custom(100000, 100000, 1), "Cell count overflows int");
+    }
+
+    @Test
+    void testFromArgs() {
+        assertSame(BoardConfig.INTERMEDIATE, BoardConfig.fromArgs(null));
+        assertSame(BoardConfig.INTERMEDIATE, BoardConfig.fromArgs(new String[0]));
+        assertSame(BoardConfig.BEGINNER, BoardConfig.fromArgs(new String[]{"beginner"}));
+        assertSame(BoardConfig.EXPERT, BoardConfig.fromArgs(new String[]{"EXPERT"}));
+
+        BoardConfig custom = BoardConfig.fromArgs(new String[]{"20", "30", "50"});
+        assertEquals(20, custom.getRows());
+        assertEquals(30, custom.getCols());
+        assertEquals(50, custom.getMines());
+    }
+}
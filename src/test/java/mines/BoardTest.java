@@ -6,9 +6,11 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import javax.swing.JLabel;
 
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 
@@ -200,6 +202,7 @@ class BoardTest {
 
     @Test
     void testMinePlacement() {
+        board.getEngine().setFirstClickSafe(false);  // deal now rather than on the first reveal
         int[] field = board.getField();
         
         int mineCount = 0;
@@ -214,6 +217,7 @@ class BoardTest {
 
     @Test
     void testNeighborCountingCompleteness() {
+        board.getEngine().setFirstClickSafe(false);  // deal now rather than on the first reveal
         int[] field = board.getField();
         
         // Count how many cells have neighbor counts (values between 1-8 with cover)
@@ -282,19 +286,10 @@ class BoardTest {
     }
 
     @Test
-    void testWinCondition_AllSafeRevealed_AllMinesFlaggedCorrectly() throws Exception {
-        // Use reflection to access private fields
-        Field fieldField = Board.class.getDeclaredField("field");
-        fieldField.setAccessible(true);
-        int[] field = (int[]) fieldField.get(board);
-
-        Field markersField = Board.class.getDeclaredField("markers");
-        markersField.setAccessible(true);
-        int[] markers = (int[]) markersField.get(board);
-
-        Field playerFlagsField = Board.class.getDeclaredField("playerFlags");
-        playerFlagsField.setAccessible(true);
-        int[] playerFlags = (int[]) playerFlagsField.get(board);
+    void testWinCondition_AllSafeRevealed_AllMinesFlaggedCorrectly() {
+        int[] field = new int[256];
+        int[] markers = new int[256];
+        Arrays.fill(markers, -1);
 
         // All safe cells revealed (0–8)
         Arrays.fill(field, 0);
@@ -305,32 +300,29 @@ class BoardTest {
         for (int i = 0; i < field.length && minesFlagged < 40; i++) {
             if (field[i] == 0) {
                 field[i] = 29;           // MARKED_MINE_CELL
-                markers[i] = player;     // THIS WAS MISSING!
-                playerFlags[player]++;
+                markers[i] = player;
                 player = 1 - player;
                 minesFlagged++;
             }
         }
 
+        board.setFieldForTesting(field);
+        board.getEngine().setMarkersForTesting(markers);  // recounts flags and win counters
         board.setMinesLeft(0);
 
-        // Trigger paint() → win detection
-        BufferedImage img = new BufferedImage(240, 240, BufferedImage.TYPE_INT_RGB);
-        board.paint(img.getGraphics());
+        // Win detection runs in the engine, no paint() needed
+        board.getEngine().checkWin();
 
+        assertArrayEquals(new int[]{20, 20}, board.getPlayerFlags(), "Flags should be split between players");
         assertFalse(board.isInGame(), "Game should be over");
         assertTrue(board.isGameWon(), "Game should be won when all conditions met");
     }
 
     @Test
-    void testWinCondition_FailsIfWrongFlagExists() throws Exception {
-        Field fieldField = Board.class.getDeclaredField("field");
-        fieldField.setAccessible(true);
-        int[] field = (int[]) fieldField.get(board);
-
-        Field markersField = Board.class.getDeclaredField("markers");
-        markersField.setAccessible(true);
-        int[] markers = (int[]) markersField.get(board);
+    void testWinCondition_FailsIfWrongFlagExists() {
+        int[] field = new int[256];
+        int[] markers = new int[256];
+        Arrays.fill(markers, -1);
 
         // All safe cells revealed
         Arrays.fill(field, 0);
@@ -349,7 +341,10 @@ class BoardTest {
         field[100] = 20;      // flagged safe cell
         markers[100] = 1;     // Player 2 placed wrong flag
 
+        board.setFieldForTesting(field);
+        board.getEngine().setMarkersForTesting(markers);
         board.setMinesLeft(0);
+        board.getEngine().checkWin();
 
         BufferedImage img = new BufferedImage(240, 240, BufferedImage.TYPE_INT_RGB);
         board.paint(img.getGraphics());
@@ -357,6 +352,32 @@ class BoardTest {
         assertTrue(board.isInGame(), "Game should NOT end if there's a wrong flag");
         assertFalse(board.isGameWon(), "Game should not be won with wrong flags");
     }
+
+    @Test
+    void testProbabilityOverlay_TintsCoveredCells() {
+        GameEngine engine = board.getEngine();
+        engine.setFirstClickSafe(false);
+        engine.newGame(21L);
+        int mine = engine.getCells().nextMine(0);
+
+        BufferedImage plain = new BufferedImage(240, 240, BufferedImage.TYPE_INT_RGB);
+        board.paint(plain.getGraphics());
+
+        board.setProbabilityOverlay(true);
+        assertTrue(board.isProbabilityOverlay());
+        assertEquals(40.0 / 256, board.getProbabilities().probability(mine), 1e-9,
+                "Before any reveal every cell has the same chance");
+
+        BufferedImage tinted = new BufferedImage(240, 240, BufferedImage.TYPE_INT_RGB);
+        board.paint(tinted.getGraphics());
+        int x = (mine % 16) * 15 + 7;
+        int y = (mine / 16) * 15 + 7;
+        assertNotEquals(plain.getRGB(x, y), tinted.getRGB(x, y), "Covered cells should be tinted");
+
+        board.setProbabilityOverlay(false);
+        assertNull(board.getProbabilities());
+    }
+
     @Test
     void testGameOver_ShowsAllMinesAndWrongFlags() {
         int[] testField = new int[256];
@@ -381,55 +402,35 @@ class BoardTest {
     }
 
     @Test
-    void testFlagAndUnflagByCurrentPlayerOnly() throws Exception {
+    void testFlagAndUnflagByCurrentPlayerOnly() {
         int pos = 100;
 
-        // Get direct access to private fields
-        Field fieldField = Board.class.getDeclaredField("field");
-        fieldField.setAccessible(true);
-        int[] field = (int[]) fieldField.get(board);
-
-        Field markersField = Board.class.getDeclaredField("markers");
-        markersField.setAccessible(true);
-        int[] markers = (int[]) markersField.get(board);
-
-        Field playerFlagsField = Board.class.getDeclaredField("playerFlags");
-        playerFlagsField.setAccessible(true);
-        int[] playerFlags = (int[]) playerFlagsField.get(board);
-
-        // Reset cell to covered + empty
-        field[pos] = Board.getCoverForCell();  // 10
-        markers[pos] = -1;
+        // Reset board to covered + empty
+        int[] testField = new int[256];
+        Arrays.fill(testField, Board.getCoverForCell());  // 10
+        board.setFieldForTesting(testField);
         board.setMinesLeft(10);
 
         // Player 0 places a flag
         board.setCurrentPlayer(0);
-        field[pos] += Board.getMarkForCell();     // 10 + 10 = 20
-        markers[pos] = 0;
-        playerFlags[0]++;
-        board.setMinesLeft(board.getMinesLeft() - 1);
+        assertTrue(board.getEngine().flag(pos));
 
-        assertEquals(20, field[pos]);
-        assertEquals(0, markers[pos]);
+        assertEquals(20, board.getField()[pos]);
+        assertEquals(0, board.getMarkers()[pos]);
+        assertEquals(9, board.getMinesLeft());
 
         // Player 1 tries to remove Player 0's flag → should NOT be allowed
         board.setCurrentPlayer(1);
-        boolean canUnflag = markers[pos] == board.getCurrentPlayer();
-        assertFalse(canUnflag, "Player 1 should not be able to remove Player 0's flag");
+        assertFalse(board.getEngine().unflag(pos), "Player 1 should not be able to remove Player 0's flag");
+        assertEquals(20, board.getField()[pos], "Flag should still be there");
 
         // Player 0 removes their own flag
         board.setCurrentPlayer(0);
-        canUnflag = markers[pos] == board.getCurrentPlayer();
-        assertTrue(canUnflag, "Player 0 should be able to remove their own flag");
-
-        field[pos] -= Board.getMarkForCell();     // 20 - 10 = 10
-        markers[pos] = -1;
-        playerFlags[0]--;
-        board.setMinesLeft(board.getMinesLeft() + 1);
+        assertTrue(board.getEngine().unflag(pos), "Player 0 should be able to remove their own flag");
 
-        // This will NOW pass!
-        assertEquals(Board.getCoverForCell(), field[pos], "Cell should be covered again");
-        assertEquals(-1, markers[pos], "Marker should be removed");
+        assertEquals(Board.getCoverForCell(), board.getField()[pos], "Cell should be covered again");
+        assertEquals(-1, board.getMarkers()[pos], "Marker should be removed");
+        assertEquals(10, board.getMinesLeft());
     }
 
     @Test
@@ -489,6 +490,143 @@ class BoardTest {
         assertEquals(initial, board.getMinesLeft());
     }
 
+    @Test
+    void testUndo_OnlyInPractice() {
+        int[] safeField = new int[256];
+        Arrays.fill(safeField, Board.getCoverForCell());
+        board.setFieldForTesting(safeField);
+        board.setMinesLeft(40);
+        board.setInGame(true);
+        board.setCurrentPlayer(0);
+
+        simulateRightClick(board, 5, 5);
+        pressCtrl(board, KeyEvent.VK_Z);
+        assertEquals(39, board.getMinesLeft(), "No undo in a two-player game");
+        assertNull(board.getEngine().getHistory());
+
+        board.setPractice(true);
+        simulateRightClick(board, 6, 6);
+        pressCtrl(board, KeyEvent.VK_Z);
+        assertEquals(39, board.getMinesLeft(), "The practice move was undone");
+        pressCtrl(board, KeyEvent.VK_Y);
+        assertEquals(38, board.getMinesLeft());
+    }
+
+    @Test
+    void testZoom_ScalesBoardAndMouseMapping() {
+        assertEquals(Board.DEFAULT_CELL_SIZE, board.getCellSize());
+        board.zoom(1, new java.awt.Point(0, 0));
+        int size = board.getCellSize();
+        assertTrue(size > Board.DEFAULT_CELL_SIZE, "Zooming in should enlarge cells");
+        assertEquals(16 * size, board.getPreferredSize().width);
+
+        int initial = board.getMinesLeft();
+        MouseEvent e = new MouseEvent(board, MouseEvent.MOUSE_PRESSED,
+                System.currentTimeMillis(), 0, 3 * size + 1, 2 * size + 1, 1, false, MouseEvent.BUTTON3);
+        board.simulateMousePress(e);
+        assertEquals(initial - 1, board.getMinesLeft());
+        assertEquals(0, board.getMarkers()[2 * 16 + 3], "Click should land on row 2, column 3");
+
+        for (int i = 0; i < 20; i++) board.zoom(-1, new java.awt.Point(0, 0));
+        assertTrue(board.getCellSize() > 0, "Zooming out stops at the smallest level");
+    }
+
+    @Test
+    void testZoom_KeepsAnchorInPlaceInViewport() {
+        Board big = new Board(statusbar, BoardConfig.custom(200, 200, 10));
+        javax.swing.JScrollPane scroll = new javax.swing.JScrollPane(big);
+        scroll.setSize(300, 300);
+        scroll.doLayout();
+        javax.swing.JViewport viewport = scroll.getViewport();
+        viewport.setViewPosition(new java.awt.Point(600, 600));
+
+        java.awt.Point anchor = new java.awt.Point(700, 650);
+        int before = big.getCellSize();
+        big.zoom(1, anchor);
+        int after = big.getCellSize();
+
+        java.awt.Point view = viewport.getViewPosition();
+        assertEquals(anchor.x - 600, anchor.x * after / before - view.x, 1);
+        assertEquals(anchor.y - 600, anchor.y * after / before - view.y, 1);
+    }
+
+    @Test
+    void testPaint_OnlyDrawsClippedCellsOnHugeBoard() {
+        Board huge = new Board(statusbar, BoardConfig.custom(2000, 2000, 1000));
+        BufferedImage canvas = new BufferedImage(150, 150, BufferedImage.TYPE_INT_RGB);
+        java.awt.Graphics g = canvas.getGraphics();
+        g.translate(-1000 * 15, -1000 * 15);
+        g.setClip(1000 * 15, 1000 * 15, 150, 150);
+
+        long start = System.nanoTime();
+        huge.paint(g);
+        assertTrue(System.nanoTime() - start < 1_000_000_000L, "A 10x10 clip should not touch 4M cells");
+    }
+
+    @Test
+    void testPaint_DoesNotChangeGameState() {
+        int[] testField = new int[256];
+        Arrays.fill(testField, Board.getCoverForCell());
+        testField[50] = GameEngine.MINE_CELL;  // a revealed mine
+        board.setFieldForTesting(testField);
+
+        BufferedImage img = new BufferedImage(240, 240, BufferedImage.TYPE_INT_RGB);
+        board.paint(img.getGraphics());
+        assertTrue(board.isInGame(), "paint() must only read the state");
+    }
+
+    @Test
+    void testMoves_CoalesceIntoOneViewUpdate() throws Exception {
+        GameEngine engine = board.getEngine();
+        engine.setFirstClickSafe(false);  // deals the mines now
+        javax.swing.SwingUtilities.invokeAndWait(() -> { });  // drain the initial update
+        statusbar.setText("");
+
+        int mine = engine.getCells().nextMine(0);
+        int safe = 0;
+        while (engine.getCells().isMine(safe) || engine.neighborMines(safe) == 0) safe++;
+        int cell = safe;
+        // on the EDT, like mouse moves, so the queued update cannot run in between
+        javax.swing.SwingUtilities.invokeAndWait(() -> {
+            engine.flag(mine);
+            engine.reveal(cell);
+            assertEquals("", statusbar.getText(), "The view updates later, on the EDT");
+        });
+
+        javax.swing.SwingUtilities.invokeAndWait(() -> { });
+        assertTrue(statusbar.getText().startsWith("Player 2's turn"), statusbar.getText());
+        assertFalse(engine.hasDirtyRegion(), "One update repainted every change");
+    }
+
+    @Test
+    void testApplyMoves_UpdatesViewOnce() throws Exception {
+        GameEngine engine = board.getEngine();
+        engine.setFirstClickSafe(false);  // deals the mines now
+        javax.swing.SwingUtilities.invokeAndWait(() -> { });
+        statusbar.setText("");
+
+        int mine = engine.getCells().nextMine(0);
+        int safe = 0;
+        while (engine.getCells().isMine(safe) || engine.neighborMines(safe) == 0) safe++;
+        long[] moves = { Moves.encode(mine, Moves.FLAG, 0), Moves.encode(safe, Moves.REVEAL, 0) };
+        int[] results = new int[2];
+
+        javax.swing.SwingUtilities.invokeAndWait(() -> {
+            assertTrue(board.applyMoves(moves, 2, results));
+            assertEquals("", statusbar.getText(), "The view updates later, on the EDT");
+        });
+
+        javax.swing.SwingUtilities.invokeAndWait(() -> { });
+        assertTrue(statusbar.getText().startsWith("Player 2's turn"), statusbar.getText());
+        assertFalse(engine.hasDirtyRegion(), "One update repainted the whole batch");
+    }
+
+    private void pressCtrl(Board board, int keyCode) {
+        KeyEvent e = new KeyEvent(board, KeyEvent.KEY_PRESSED, System.currentTimeMillis(),
+                InputEvent.CTRL_DOWN_MASK, keyCode, KeyEvent.CHAR_UNDEFINED);
+        for (KeyListener listener : board.getKeyListeners()) listener.keyPressed(e);
+    }
+
     private void simulateRightClick(Board board, int row, int col) {
         int x = col * 15 + 7;
         int y = row * 15 + 7;
@@ -0,0 +1,111 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BotProtocolTest {
+
+    private static String[] run(String script) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BotProtocol(new ByteArrayInputStream(script.getBytes(StandardCharsets.US_ASCII)), out).run();
+        return out.toString("US-ASCII").split("\n");
+    }
+
+    @Test
+    void testPipelinedCommandsAnswerInOrder() throws IOException {
+        GameEngine reference = new GameEngine(BoardConfig.BEGINNER);
+        reference.newGame(7L);
+        int safe = 40;  // same seed and first click, so the same mines
+        reference.reveal(safe);
+        int mine = reference.getCells().nextMine(0);
+
+        String[] replies = run("NEW 9 9 10 7\n"
+                + "FLAG " + mine + "\n"
+                + "REVEAL " + safe + "\n"
+                + "REVEAL " + safe + "\n"
+                + "QUERY " + mine + " " + safe + "\n"
+                + "STATE\n"
+                + "PING\n"
+                + "QUIT\n"
+                + "PING\n");
+
+        assertEquals(7, replies.length, "Nothing after QUIT");
+        assertEquals("NEW 9 9 10 7", replies[0]);
+        assertEquals("OK PLAYING 0", replies[1], "Flagging keeps the turn");
+        assertEquals("OK PLAYING 1", replies[2]);
+        assertEquals("ERR illegal move", replies[3]);
+        assertEquals("CELLS F" + Match.symbol(reference, safe), replies[4]);
+        assertEquals("STATE PLAYING 1 9 1 0", replies[5]);
+        assertEquals("PONG", replies[6]);
+    }
+
+    @Test
+    void testDiffReportsOnlyChangedCells() throws IOException {
+        GameEngine reference = new GameEngine(BoardConfig.BEGINNER);
+        reference.newGame(7L);
+        int zero = 40;  // the first reveal is an opening
+        reference.reveal(zero);
+        int revealed = reference.getUncoveredSafeCells();
+
+        String[] replies = run("NEW 9 9 10 7\nDIFF\nREVEAL " + zero + "\nDIFF\nDIFF\n");
+
+        assertEquals("DIFF 0", replies[1], "A new board is all covered");
+        String[] diff = replies[3].split(" ");
+        assertEquals(Integer.toString(revealed), diff[1]);
+        assertEquals(revealed + 2, diff.length);
+        for (int i = 2; i < diff.length; i++) {
+            int pos = Integer.parseInt(diff[i].substring(0, diff[i].indexOf(':')));
+            assertEquals(Match.symbol(reference, pos), diff[i].charAt(diff[i].length() - 1));
+        }
+        assertEquals("DIFF 0", replies[4]);
+    }
+
+    @Test
+    void testErrors() throws IOException {
+        String[] replies = run("NEW 9 9\nNEW 0 9 10\nREVEAL x\nQUERY 256\nJUMP\n\nUNFLAG 3\n"
+                + "NEW 9\nNEW 9 9 10 7 8\nNEW 46341 46341 10\nREVEAL\nQUERY\n");
+
+        assertEquals("ERR bad arguments", replies[0], "Too few numbers are refused");
+        assertTrue(replies[1].startsWith("ERR Board needs"), replies[1]);
+        assertEquals("ERR bad arguments", replies[2]);
+        assertEquals("ERR no cell 256", replies[3]);
+        assertEquals("ERR unknown command JUMP", replies[4]);
+        assertEquals("ERR illegal move", replies[5], "Blank lines get no reply");
+        assertEquals("ERR bad arguments", replies[6]);
+        assertEquals("ERR bad arguments", replies[7], "Too many numbers are refused");
+        assertTrue(replies[8].startsWith("ERR Board too large"), replies[8]);
+        assertEquals("ERR bad arguments", replies[9]);
+        assertEquals("ERR bad arguments", replies[10]);
+    }
+
+    @Test
+    void testBoardsLargerThanMatchesAreAllowed() throws IOException {
+        String[] replies = run("NEW 600 600 1000 5\nSTATE\n");
+        assertEquals("NEW 600 600 1000 5", replies[0]);
+        assertEquals("STATE PLAYING 0 1000 0 0", replies[1]);
+    }
+
+    @Test
+    void testFlushesOncePerBurst() throws IOException {
+        int[] flushes = new int[1];
+        OutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        };
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 1000; i++) script.append("PING\n");
+
+        new BotProtocol(new ByteArrayInputStream(script.toString().getBytes(StandardCharsets.US_ASCII)), out).run();
+        assertTrue(flushes[0] <= 2, "Flushed " + flushes[0] + " times");
+        assertEquals(1000 * 5, ((ByteArrayOutputStream) out).size());
+    }
+}
@@ -0,0 +1,45 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.swing.JLabel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndlessBoardTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testClickAtTheCentreOpensTheOrigin() throws IOException {
+        JLabel statusbar = new JLabel();
+        EndlessWorld world = new EndlessWorld(3L, EndlessWorld.DEFAULT_DENSITY, 0, new ChunkStore(dir));
+        EndlessBoard board = new EndlessBoard(statusbar, world);
+        assertTrue(statusbar.getText().startsWith("Player 1's turn"), statusbar.getText());
+
+        int size = Board.DEFAULT_CELL_SIZE;
+        int x = -board.getLeftCol() * size + size / 2;
+        int y = -board.getTopRow() * size + size / 2;
+        board.new EndlessAdapter().mousePressed(new MouseEvent(board, MouseEvent.MOUSE_PRESSED,
+                System.currentTimeMillis(), 0, x, y, 1, false, MouseEvent.BUTTON1));
+
+        assertTrue(world.isRevealed(0, 0));
+        assertFalse(world.hasDirtyRegion(), "The move was repainted");
+        assertTrue(statusbar.getText().startsWith("Player 2's turn"), statusbar.getText());
+
+        // Painting reads chunks on either side of the window's edges
+        board.scrollBy(EndlessWorld.CHUNK * 10, -EndlessWorld.CHUNK * 10);
+        BufferedImage img = new BufferedImage(EndlessBoard.VIEW_COLS * size, EndlessBoard.VIEW_ROWS * size,
+                BufferedImage.TYPE_INT_RGB);
+        board.paint(img.getGraphics());
+        assertTrue(world.isInGame(), "paint() must only read the state");
+        assertTrue(world.cachedChunks() <= world.maxChunks());
+    }
+}
@@ -0,0 +1,145 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndlessWorldTest {
+
+    private static final int CHUNK = EndlessWorld.CHUNK;
+
+    @TempDir
+    Path dir;
+
+    private EndlessWorld world(long seed, long maxBytes) throws IOException {
+        return new EndlessWorld(seed, EndlessWorld.DEFAULT_DENSITY, maxBytes, new ChunkStore(dir.resolve("s" + seed)));
+    }
+
+    @Test
+    void testChunksAreDealtFromTheSeed() throws IOException {
+        EndlessWorld a = world(5L, EndlessWorld.DEFAULT_MAX_BYTES);
+        EndlessWorld b = world(5L, EndlessWorld.DEFAULT_MAX_BYTES);
+        EndlessWorld other = world(6L, EndlessWorld.DEFAULT_MAX_BYTES);
+
+        // chunks are touched in opposite orders, negative ones too
+        boolean[] seen = new boolean[16 * CHUNK * CHUNK];
+        for (int row = 2 * CHUNK - 1; row >= -2 * CHUNK; row--) {
+            for (int col = 2 * CHUNK - 1; col >= -2 * CHUNK; col--) {
+                seen[(row + 2 * CHUNK) * 4 * CHUNK + col + 2 * CHUNK] = b.isMine(row, col);
+            }
+        }
+        boolean differs = false;
+        for (int row = -2 * CHUNK; row < 2 * CHUNK; row++) {
+            for (int col = -2 * CHUNK; col < 2 * CHUNK; col++) {
+                assertEquals(seen[(row + 2 * CHUNK) * 4 * CHUNK + col + 2 * CHUNK], a.isMine(row, col));
+                differs |= a.isMine(row, col) != other.isMine(row, col);
+            }
+        }
+        assertTrue(differs, "Another seed deals another world");
+        assertEquals(Math.round(EndlessWorld.DEFAULT_DENSITY * EndlessWorld.CHUNK_CELLS), countMines(a, 1, 1));
+    }
+
+    private static int countMines(EndlessWorld world, int chunkRow, int chunkCol) {
+        int mines = 0;
+        for (int row = chunkRow * CHUNK; row < (chunkRow + 1) * CHUNK; row++) {
+            for (int col = chunkCol * CHUNK; col < (chunkCol + 1) * CHUNK; col++) {
+                if (world.isMine(row, col)) mines++;
+            }
+        }
+        return mines;
+    }
+
+    @Test
+    void testCountsCrossChunkEdges() throws IOException {
+        EndlessWorld world = world(9L, EndlessWorld.DEFAULT_MAX_BYTES);
+        for (int row = CHUNK - 2; row <= CHUNK + 1; row++) {
+            for (int col = -CHUNK; col < CHUNK; col++) {
+                int expected = 0;
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        if ((dr != 0 || dc != 0) && world.isMine(row + dr, col + dc)) expected++;
+                    }
+                }
+                assertEquals(expected, world.neighborMines(row, col), "cell " + row + "," + col);
+            }
+        }
+    }
+
+    @Test
+    void testOriginOpensAcrossChunks() throws IOException {
+        EndlessWorld world = world(11L, EndlessWorld.DEFAULT_MAX_BYTES);
+
+        assertTrue(world.reveal(0, 0));
+        assertTrue(world.isInGame(), "The origin is never a mine");
+        assertEquals(1, world.getCurrentPlayer());
+        // (0, 0) is the corner of four chunks, and its neighbours are all open
+        assertTrue(world.isRevealed(-1, -1) && world.isRevealed(-1, 1) && world.isRevealed(1, -1));
+        assertTrue(world.getUncoveredSafeCells() >= 9);
+
+        // The fill stopped exactly at numbered cells
+        for (int row = -3 * CHUNK; row < 3 * CHUNK; row++) {
+            for (int col = -3 * CHUNK; col < 3 * CHUNK; col++) {
+                if (!world.isRevealed(row, col)) continue;
+                assertFalse(world.isMine(row, col));
+                if (world.neighborMines(row, col) != 0) continue;
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        assertTrue(world.isRevealed(row + dr, col + dc), "around " + row + "," + col);
+                    }
+                }
+            }
+        }
+        assertTrue(world.hasDirtyRegion());
+        assertTrue(world.getDirtyMinRow() < 0 && world.getDirtyMaxCol() > 0);
+    }
+
+    @Test
+    void testEvictedChunksComeBackFromTheStore() throws IOException {
+        EndlessWorld world = world(13L, 0);  // the smallest cache there is
+        world.reveal(0, 0);
+        int flagRow = 5 * CHUNK + 3;
+        int flagCol = 0;
+        while (world.isMine(flagRow, flagCol) || world.isRevealed(flagRow, flagCol)) flagCol++;
+        world.flag(flagRow, flagCol);
+        long uncovered = world.getUncoveredSafeCells();
+
+        // wander far away, one chunk at a time
+        for (int i = 0; i < 1000; i++) {
+            world.isMine(1_000_000, i * CHUNK);
+            assertTrue(world.cachedChunks() <= world.maxChunks(), "Memory stays flat");
+        }
+        ChunkStore store = world.getStore();
+        assertTrue(store.writes() >= 2, "Played chunks were stored");
+        assertEquals(0, store.reads());
+
+        assertTrue(world.isRevealed(0, 0));
+        assertTrue(world.isRevealed(-1, -1));
+        assertEquals(1, world.flagOwner(flagRow, flagCol));
+        assertFalse(world.flag(flagRow, flagCol), "Still flagged");
+        assertTrue(store.reads() >= 2);
+        assertEquals(uncovered, world.getUncoveredSafeCells());
+    }
+
+    @Test
+    void testRevealingAMineEndsTheGame() throws IOException {
+        EndlessWorld world = world(17L, EndlessWorld.DEFAULT_MAX_BYTES);
+        int col = 0;
+        while (!world.isMine(CHUNK * 3, col)) col++;
+
+        assertTrue(world.reveal(CHUNK * 3, col));
+        assertFalse(world.isInGame());
+        assertEquals(0, world.getCurrentPlayer(), "The player who hit the mine");
+        assertFalse(world.reveal(0, 0));
+    }
+
+    @Test
+    void testDensityIsBounded() throws IOException {
+        ChunkStore store = new ChunkStore(dir);
+        assertThrows(IllegalArgumentException.class, () -> new EndlessWorld(1L, 0.1, 0, store));
+        assertThrows(IllegalArgumentException.class, () -> new EndlessWorld(1L, Double.NaN, 0, store));
+    }
+}
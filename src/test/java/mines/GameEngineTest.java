@@ -0,0 +1,702 @@
+package mines;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEngineTest {
+
+    private GameEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new GameEngine();
+        engine.setFirstClickSafe(false);  // most tests look at the mines first
+    }
+
+    // 16x16 board, all cells covered and empty except one mine at `minePos`
+    private void loadSingleMineField(int minePos) {
+        int[] field = new int[engine.getAllCells()];
+        Arrays.fill(field, GameEngine.COVER_FOR_CELL);
+        field[minePos] = GameEngine.COVERED_MINE_CELL;
+        engine.setFieldForTesting(field);
+        engine.incrementNeighbors(minePos);
+    }
+
+    @Test
+    void testNewGameState() {
+        // setUp() turned first-click safety off, so the mines are dealt
+        assertTrue(engine.isInGame(), "Game should be in progress");
+        assertEquals(0, engine.getCurrentPlayer(), "Player 1 should start");
+        assertEquals(40, engine.getMinesLeft(), "Mines left should be 40");
+
+        int mines = 0;
+        for (int cell : engine.getField()) {
+            if (cell == GameEngine.COVERED_MINE_CELL) mines++;
+        }
+        assertEquals(40, mines, "Should have exactly 40 mines placed");
+    }
+
+    @Test
+    void testRevealSafeCellSwitchesTurn() {
+        loadSingleMineField(0);
+
+        assertTrue(engine.reveal(1), "Revealing a covered cell should change the board");
+        assertEquals(1, engine.getField()[1], "Cell next to the mine should show 1");
+        assertEquals(1, engine.getCurrentPlayer(), "Turn should pass to player 2");
+        assertTrue(engine.isInGame(), "Game should still be in progress");
+    }
+
+    @Test
+    void testRevealRevealedCellIsRejected() {
+        loadSingleMineField(0);
+        engine.reveal(1);
+
+        assertFalse(engine.reveal(1), "Revealing twice should be rejected");
+        assertEquals(1, engine.getCurrentPlayer(), "Rejected move should not switch turn");
+    }
+
+    @Test
+    void testRevealMineEndsGame() {
+        loadSingleMineField(0);
+
+        assertTrue(engine.reveal(0));
+        assertFalse(engine.isInGame(), "Revealing a mine should end the game");
+        assertFalse(engine.isGameWon(), "Revealing a mine should not win");
+        assertEquals(0, engine.getCurrentPlayer(), "Loser should stay the current player");
+    }
+
+    @Test
+    void testFlagDoesNotSwitchTurn() {
+        loadSingleMineField(0);
+
+        assertTrue(engine.flag(0));
+        assertEquals(0, engine.getCurrentPlayer(), "Flagging should not switch turn");
+        assertEquals(39, engine.getMinesLeft());
+        assertEquals(1, engine.getPlayerFlags(0));
+        assertEquals(0, engine.getMarkers()[0]);
+    }
+
+    @Test
+    void testUnflagOnlyByOwner() {
+        loadSingleMineField(0);
+        engine.flag(0);
+
+        engine.setCurrentPlayer(1);
+        assertFalse(engine.unflag(0), "Player 2 should not remove Player 1's flag");
+
+        engine.setCurrentPlayer(0);
+        assertTrue(engine.unflag(0), "Player 1 should remove their own flag");
+        assertEquals(GameEngine.NO_PLAYER, engine.getMarkers()[0]);
+        assertEquals(40, engine.getMinesLeft());
+    }
+
+    @Test
+    void testFlaggedCellCannotBeRevealed() {
+        loadSingleMineField(0);
+        engine.flag(5);
+
+        assertFalse(engine.reveal(5), "Flagged cell should not be revealed");
+    }
+
+    @Test
+    void testCheckWinAfterClearingBoard() {
+        int[] field = engine.getField();
+        for (int pos = 0; pos < field.length; pos++) {
+            if (field[pos] == GameEngine.COVERED_MINE_CELL) engine.flag(pos);
+            else engine.reveal(pos);
+        }
+
+        assertFalse(engine.isInGame(), "Last move should end the game without an explicit check");
+        assertTrue(engine.isGameWon(), "All safe cells open and mines flagged should win");
+    }
+
+    @Test
+    void testMovesRejectedAfterGameOver() {
+        loadSingleMineField(0);
+        engine.reveal(0);
+
+        assertFalse(engine.reveal(5));
+        assertFalse(engine.flag(5));
+    }
+
+    @Test
+    void testFindEmptyCellsReturnsRevealedCount() {
+        int[] field = new int[engine.getAllCells()];
+        Arrays.fill(field, GameEngine.COVER_FOR_CELL);
+        engine.setFieldForTesting(field);
+
+        assertEquals(256, engine.findEmptyCells(0), "Whole empty board should be revealed");
+        for (int cell : engine.getField()) {
+            assertEquals(GameEngine.EMPTY_CELL, cell);
+        }
+        assertEquals(0, engine.findEmptyCells(0), "Nothing left to reveal");
+    }
+
+    @Test
+    void testFindEmptyCellsStopsAtFlags() {
+        loadSingleMineField(255);
+        engine.flag(17);
+
+        int revealed = engine.findEmptyCells(0);
+
+        assertEquals(254, revealed, "Everything but the mine and the flagged cell should open");
+        assertEquals(GameEngine.MARKED_CELL, engine.getField()[17], "Flagged cell should stay flagged");
+    }
+
+    @Test
+    void testNewGameWithCustomConfig() {
+        engine.newGame(BoardConfig.EXPERT);
+
+        assertEquals(16, engine.getRows());
+        assertEquals(30, engine.getCols());
+        assertEquals(99, engine.getMinesLeft());
+        assertEquals(480, engine.getField().length);
+
+        int mines = 0;
+        for (int cell : engine.getField()) {
+            if (cell == GameEngine.COVERED_MINE_CELL) mines++;
+        }
+        assertEquals(99, mines, "Expert board should have 99 mines");
+    }
+
+    @Test
+    void testLargeSparseBoardFloodFill() {
+        GameEngine big = new GameEngine(BoardConfig.custom(2000, 2000, 1));
+
+        // the first reveal keeps the mine away from the corner
+        assertTrue(big.reveal(0));
+        assertEquals(3999999, countRevealed(big),
+                "Every safe cell should be revealed without overflowing the stack");
+    }
+
+    private static int countRevealed(GameEngine engine) {
+        int revealed = 0;
+        for (int pos = 0; pos < engine.getAllCells(); pos++) {
+            if (engine.cellAt(pos) < GameEngine.COVER_FOR_CELL) revealed++;
+        }
+        return revealed;
+    }
+
+    @Test
+    void testFlagMarksSingleCellDirty() {
+        loadSingleMineField(0);
+        engine.clearDirtyRegion();
+        assertFalse(engine.hasDirtyRegion());
+
+        engine.flag(3 * 16 + 5);
+
+        assertTrue(engine.hasDirtyRegion());
+        assertEquals(3, engine.getDirtyMinRow());
+        assertEquals(3, engine.getDirtyMaxRow());
+        assertEquals(5, engine.getDirtyMinCol());
+        assertEquals(5, engine.getDirtyMaxCol());
+    }
+
+    @Test
+    void testFloodFillDirtyRegionCoversRevealedCells() {
+        int[] field = new int[engine.getAllCells()];
+        Arrays.fill(field, GameEngine.COVERED_MINE_CELL);
+        // 5x7 pocket of safe cells at rows 1-5, cols 4-10, surrounded by mines
+        for (int r = 1; r <= 5; r++) {
+            for (int c = 4; c <= 10; c++) {
+                field[r * 16 + c] = GameEngine.COVER_FOR_CELL;
+            }
+        }
+        engine.setFieldForTesting(field);
+        for (int pos = 0; pos < field.length; pos++) {
+            if (field[pos] == GameEngine.COVERED_MINE_CELL) engine.incrementNeighbors(pos);
+        }
+        engine.clearDirtyRegion();
+
+        engine.findEmptyCells(3 * 16 + 7);
+
+        assertEquals(1, engine.getDirtyMinRow());
+        assertEquals(5, engine.getDirtyMaxRow());
+        assertEquals(4, engine.getDirtyMinCol());
+        assertEquals(10, engine.getDirtyMaxCol());
+    }
+
+    @Test
+    void testRevealMineMarksWholeBoardDirty() {
+        loadSingleMineField(0);
+        engine.clearDirtyRegion();
+
+        engine.reveal(0);
+
+        assertEquals(0, engine.getDirtyMinRow());
+        assertEquals(15, engine.getDirtyMaxRow());
+        assertEquals(0, engine.getDirtyMinCol());
+        assertEquals(15, engine.getDirtyMaxCol());
+    }
+
+    @Test
+    void testWinCountersFollowMoves() {
+        loadSingleMineField(0);
+
+        engine.reveal(1);
+        assertEquals(1, engine.getUncoveredSafeCells());
+
+        engine.flag(0);
+        engine.flag(2);
+        assertEquals(1, engine.getCorrectlyFlaggedMines());
+        assertEquals(1, engine.getWrongFlags());
+
+        engine.unflag(2);
+        assertEquals(0, engine.getWrongFlags());
+
+        int opened = engine.findEmptyCells(255);
+        assertEquals(1 + opened, engine.getUncoveredSafeCells(), "Flood fill should update the counter");
+    }
+
+    @Test
+    void testWrongFlagBlocksWinUntilRemoved() {
+        engine = new GameEngine(BoardConfig.custom(16, 16, 1));
+        loadSingleMineField(0);
+        engine.flag(0);
+        engine.flag(2);
+        engine.reveal(255);
+
+        assertTrue(engine.isInGame(), "Wrong flag should block the win");
+        engine.setCurrentPlayer(0);
+        engine.unflag(2);
+        engine.reveal(2);
+
+        assertTrue(engine.isGameWon(), "Removing the wrong flag and opening the cell should win");
+    }
+
+    @Test
+    void testSameSeedGivesSameBoard() {
+        engine.newGame(42L);
+        int[] first = engine.getField();
+
+        GameEngine other = new GameEngine();
+        other.setFirstClickSafe(false);
+        other.newGame(42L);
+
+        assertEquals(42L, engine.getSeed());
+        assertArrayEquals(first, other.getField(), "Same seed should reproduce the board");
+
+        other.newGame(43L);
+        assertFalse(Arrays.equals(first, other.getField()), "Different seed should give another board");
+    }
+
+    @Test
+    void testPlacementAtFullDensity() {
+        engine.newGame(BoardConfig.custom(100, 100, 9999));
+
+        int mines = 0;
+        for (int cell : engine.getField()) {
+            if (cell == GameEngine.COVERED_MINE_CELL) mines++;
+        }
+        assertEquals(9999, mines, "Every mine should be placed even with one safe cell left");
+    }
+
+    @Test
+    void testMinesWaitForTheFirstReveal() {
+        GameEngine lazy = new GameEngine();
+        lazy.newGame(42L);
+        assertFalse(lazy.areMinesPlaced());
+        assertEquals(-1, lazy.getCells().nextMine(0), "Nothing dealt before the first click");
+
+        int first = 17;  // row 1, column 1: all eight neighbours exist
+        assertTrue(lazy.reveal(first));
+        assertTrue(lazy.isInGame(), "The first click never hits a mine");
+        int mines = 0;
+        for (int pos = lazy.getCells().nextMine(0); pos >= 0; pos = lazy.getCells().nextMine(pos + 1)) mines++;
+        assertEquals(40, mines);
+        for (int pos : new int[] {0, 1, 2, 16, 17, 18, 32, 33, 34}) {
+            assertFalse(lazy.getCells().isMine(pos), "Neighbour " + pos + " of the first click is safe");
+        }
+
+        GameEngine again = new GameEngine();
+        again.newGame(42L);
+        again.reveal(first);
+        assertArrayEquals(lazy.getField(), again.getField(), "Seed and first click fix the board");
+    }
+
+    @Test
+    void testOnlyRevealedCellsAreCounted() {
+        // too large for the zero-region index, which counts every cell
+        GameEngine lazy = new GameEngine(BoardConfig.custom(300, 300, 18000));
+        lazy.newGame(42L);
+        lazy.reveal(0);
+        for (int pos = 0; pos < lazy.getAllCells(); pos++) {
+            Match.symbol(lazy, pos);  // what a view reads for every cell it shows
+        }
+        lazy.getField();
+
+        for (int pos = 0; pos < lazy.getAllCells(); pos++) {
+            if (!lazy.getCells().isRevealed(pos)) {
+                assertFalse(lazy.getCells().isCounted(pos), "Covered cell " + pos + " was counted");
+            }
+        }
+    }
+
+    @Test
+    void testFirstRevealIsSafeAtFullDensity() {
+        GameEngine dense = new GameEngine(BoardConfig.custom(10, 10, 99));
+        assertTrue(dense.reveal(55));
+        assertTrue(dense.isInGame());
+        assertEquals(8, dense.getField()[55], "Only the clicked cell could be kept clear");
+    }
+
+    @Test
+    void testFlagsBeforeTheFirstRevealAreRescored() {
+        GameEngine lazy = new GameEngine(BoardConfig.custom(3, 3, 8));
+        lazy.flag(0);
+        lazy.reveal(4);
+
+        assertTrue(lazy.getCells().isMine(0));
+        assertEquals(1, lazy.getCorrectlyFlaggedMines());
+        assertEquals(0, lazy.getWrongFlags());
+    }
+
+    @Test
+    void testSecureRandomOptIn() {
+        GameEngine secure = new GameEngine(BoardConfig.EXPERT, new SecureRandom());
+        secure.reveal(0);
+
+        int mines = 0;
+        for (int cell : secure.getField()) {
+            if (cell == GameEngine.COVERED_MINE_CELL) mines++;
+        }
+        assertEquals(99, mines);
+    }
+    // Records events as short strings, in order.
+    private static final class EventLog implements GameListener {
+        final java.util.List<String> events = new java.util.ArrayList<>();
+        @Override public void gameStarted(GameEngine engine) { events.add("start"); }
+        @Override public void cellsRevealed(int pos, int count) { events.add("reveal " + pos + " " + count); }
+        @Override public void flagChanged(int pos, int player, boolean flagged) {
+            events.add((flagged ? "flag " : "unflag ") + pos + " " + player);
+        }
+        @Override public void turnChanged(int player) { events.add("turn " + player); }
+        @Override public void gameWon(int flags1, int flags2) { events.add("won " + flags1 + " " + flags2); }
+        @Override public void gameLost(int loser) { events.add("lost " + loser); }
+        @Override public void movesApplied(int count) { events.add("moves " + count); }
+        @Override public void movesUndone(int count) { events.add("undone " + count); }
+    }
+
+    @Test
+    void testListenersSeeEveryChange() {
+        GameEngine small = new GameEngine(BoardConfig.custom(1, 3, 1));
+        small.setFirstClickSafe(false);
+        EventLog log = new EventLog();
+        small.addListener(log);
+        small.newGame(1L);
+        int mine = small.getCells().nextMine(0);
+        int safe = mine == 0 ? 2 : 0;
+
+        small.flag(mine);
+        small.reveal(safe);
+        int uncovered = small.getUncoveredSafeCells();
+        for (int pos = 0; pos < 3; pos++) small.reveal(pos);  // the rest, if any
+
+        assertEquals("start", log.events.get(0));
+        assertEquals("flag " + mine + " 0", log.events.get(1));
+        assertEquals("reveal " + safe + " " + uncovered, log.events.get(2));
+        assertEquals("turn 1", log.events.get(3));
+        assertTrue(small.isGameWon());
+        assertEquals("won 1 0", log.events.get(log.events.size() - 1));
+
+        small.removeListener(log);
+        int before = log.events.size();
+        small.newGame(2L);
+        assertEquals(before, log.events.size(), "Removed listeners hear nothing");
+    }
+
+    @Test
+    void testListenerHearsLoss() {
+        EventLog log = new EventLog();
+        engine.addListener(log);
+        int mine = engine.getCells().nextMine(0);
+
+        engine.reveal(mine);
+        assertEquals(java.util.Arrays.asList("reveal " + mine + " 1", "lost 0"), log.events);
+    }
+
+    @Test
+    void testBatchIsUndoneWhenAMoveIsRefused() {
+        loadSingleMineField(0);
+        MoveJournal journal = new MoveJournal();
+        engine.setJournal(journal);
+        EventLog log = new EventLog();
+        engine.addListener(log);
+        int[] field = engine.getField().clone();
+        int[] markers = engine.getMarkers().clone();
+        int minesLeft = engine.getMinesLeft();
+
+        long[] moves = {
+            Moves.encode(1, Moves.FLAG, 0),
+            Moves.encode(255, Moves.REVEAL, 0),  // floods all but the mine's neighbours
+            Moves.encode(17, Moves.FLAG, 0),     // player 2's turn now
+            Moves.encode(18, Moves.REVEAL, 1),
+        };
+        int[] results = new int[moves.length];
+
+        assertFalse(engine.applyBatch(moves, moves.length, results));
+        assertArrayEquals(new int[] {Moves.ROLLED_BACK, Moves.ROLLED_BACK, Moves.NOT_YOUR_TURN, Moves.NOT_TRIED},
+                results);
+        assertArrayEquals(field, engine.getField(), "Flood fill undone");
+        assertArrayEquals(markers, engine.getMarkers(), "Flag undone");
+        assertEquals(0, engine.getCurrentPlayer());
+        assertEquals(minesLeft, engine.getMinesLeft());
+        assertEquals(0, engine.getUncoveredSafeCells());
+        assertEquals(0, journal.size());
+        assertTrue(log.events.isEmpty(), "Nothing to hear about");
+
+        engine.reveal(255);
+        assertEquals(1, engine.getCurrentPlayer(), "Engine still plays normally");
+    }
+
+    @Test
+    void testBatchMatchesMovesAppliedOneByOne() {
+        engine.newGame(7L);
+        GameEngine serial = new GameEngine();
+        serial.setFirstClickSafe(false);
+        serial.newGame(7L);
+        EventLog log = new EventLog();
+        engine.addListener(log);
+
+        int mine = engine.getCells().nextMine(0);
+        int safe = 0;
+        while (engine.getCells().isMine(safe)) safe++;
+        long[] moves = {
+            Moves.encode(mine, Moves.FLAG, 0),
+            Moves.encode(mine, Moves.UNFLAG, 0),
+            Moves.encode(safe, Moves.REVEAL, 0),
+        };
+        int[] results = new int[moves.length];
+
+        assertTrue(engine.applyBatch(moves, moves.length, results));
+        for (long move : moves) assertTrue(serial.apply(move));
+        assertArrayEquals(new int[3], results, "All applied");
+        assertArrayEquals(serial.getField(), engine.getField());
+        assertArrayEquals(serial.getMarkers(), engine.getMarkers());
+        assertEquals(serial.getCurrentPlayer(), engine.getCurrentPlayer());
+        assertEquals(Arrays.asList("moves 3"), log.events, "One event for the whole batch");
+    }
+
+    @Test
+    void testBatchEndsWhereTheGameEnds() {
+        engine.newGame(7L);
+        EventLog log = new EventLog();
+        engine.addListener(log);
+        int mine = engine.getCells().nextMine(0);
+        int other = engine.getCells().nextMine(mine + 1);
+
+        long[] moves = {
+            Moves.encode(mine, Moves.REVEAL, 0),
+            Moves.encode(other, Moves.FLAG, 0),
+        };
+        int[] results = new int[moves.length];
+
+        assertTrue(engine.applyBatch(moves, moves.length, results), "Hitting a mine is not a refusal");
+        assertArrayEquals(new int[] {Moves.APPLIED, Moves.GAME_OVER}, results);
+        assertFalse(engine.isInGame());
+        assertEquals(Arrays.asList("moves 1", "lost 0"), log.events);
+    }
+
+    @Test
+    void testCheckUsesOnlyPublicInformation() {
+        engine.newGame(7L);
+        int mine = engine.getCells().nextMine(0);
+        assertEquals(Moves.APPLIED, engine.check(Moves.encode(mine, Moves.REVEAL, 0)));
+        assertEquals(Moves.NOT_YOUR_TURN, engine.check(Moves.encode(mine, Moves.REVEAL, 1)));
+        assertEquals(Moves.ILLEGAL, engine.check(Moves.encode(mine, Moves.UNFLAG, 0)));
+        assertEquals(Moves.ILLEGAL, engine.check(Moves.encode(engine.getAllCells(), Moves.FLAG, 0)));
+    }
+
+    private static String state(GameEngine engine) {
+        return Arrays.toString(engine.getField()) + Arrays.toString(engine.getMarkers())
+                + " player=" + engine.getCurrentPlayer() + " inGame=" + engine.isInGame()
+                + " minesLeft=" + engine.getMinesLeft() + " safe=" + engine.getUncoveredSafeCells()
+                + " correct=" + engine.getCorrectlyFlaggedMines() + " wrong=" + engine.getWrongFlags()
+                + " flags=" + Arrays.toString(engine.getPlayerFlags());
+    }
+
+    @Test
+    void testFlagsSplitAnIndexedRegion() {
+        loadSingleMineField(0);  // one region covering all but the corner
+        for (int row = 0; row < 16; row++) engine.flag(row * 16 + 8);
+
+        assertTrue(engine.reveal(15));
+        for (int row = 0; row < 16; row++) {
+            assertTrue(engine.getCells().isRevealed(row * 16 + 15));
+            assertFalse(engine.getCells().isRevealed(row * 16 + 8), "Flags are never uncovered");
+            assertFalse(engine.getCells().isRevealed(row * 16 + 7), "The fill stops at the flags");
+        }
+        assertEquals(16 * 7, engine.getUncoveredSafeCells());
+
+        // The other side is reached by a fill as well, as part of the region is open
+        assertTrue(engine.reveal(33));
+        assertEquals(16 * 15 - 1, engine.getUncoveredSafeCells());
+        assertFalse(engine.getCells().isRevealed(0));
+    }
+
+    @Test
+    void testRegionsAreIndexedAsTheyAreOpened() {
+        loadSingleMineField(0);
+        assertTrue(engine.reveal(255));
+        assertEquals(1, engine.indexedRegions());
+
+        GameEngine large = new GameEngine(BoardConfig.custom(1000, 1000, 2000));
+        large.newGame(3L);
+        assertTrue(large.reveal(500 * 1000 + 500));  // first-click safe, so an opening
+        assertTrue(large.getUncoveredSafeCells() > 1);
+        assertEquals(1, large.indexedRegions(), "Large boards are indexed too");
+        PackedCells cells = large.getCells();
+        for (int pos = 0; pos < large.getAllCells(); pos++) {
+            if (cells.isCounted(pos)) assertTrue(cells.isRevealed(pos), "Only opened cells are counted");
+        }
+    }
+
+    @Test
+    void testRegionRevealIsUndone() {
+        engine.setHistory(new MoveHistory());
+        loadSingleMineField(0);
+        String before = state(engine);
+
+        assertTrue(engine.reveal(255));
+        assertEquals(255, engine.getUncoveredSafeCells());
+        assertTrue(engine.undo());
+        assertEquals(before, state(engine));
+        assertTrue(engine.redo());
+        assertEquals(255, engine.getUncoveredSafeCells());
+    }
+
+    @Test
+    void testUndoAndRedoStepThroughTheGame() {
+        engine.setHistory(new MoveHistory());
+        engine.newGame(7L);
+        PackedCells cells = engine.getCells();
+        int mine = cells.nextMine(0);
+        int notMine = 0;
+        while (cells.isMine(notMine)) notMine++;
+
+        java.util.List<String> states = new java.util.ArrayList<>();
+        states.add(state(engine));
+        assertTrue(engine.flag(mine));
+        states.add(state(engine));
+        assertTrue(engine.flag(notMine));  // a wrong flag
+        states.add(state(engine));
+        assertTrue(engine.unflag(notMine));
+        states.add(state(engine));
+        for (int pos = 0; pos < engine.getAllCells() && states.size() < 12; pos++) {
+            if (!cells.isMine(pos) && engine.reveal(pos)) states.add(state(engine));
+        }
+        assertTrue(engine.reveal(cells.nextMine(mine + 1)));  // and lose
+        states.add(state(engine));
+        assertFalse(engine.isInGame());
+
+        for (int i = states.size() - 2; i >= 0; i--) {
+            assertTrue(engine.undo());
+            assertEquals(states.get(i), state(engine), "After undoing back to " + i);
+        }
+        assertFalse(engine.undo(), "Nothing before the first move");
+
+        for (int i = 1; i < states.size(); i++) {
+            assertTrue(engine.redo());
+            assertEquals(states.get(i), state(engine), "After redoing to " + i);
+        }
+        assertFalse(engine.redo());
+    }
+
+    @Test
+    void testNewMoveReplacesRedo() {
+        engine.setHistory(new MoveHistory());
+        engine.newGame(7L);
+        int mine = engine.getCells().nextMine(0);
+        int other = engine.getCells().nextMine(mine + 1);
+
+        engine.flag(mine);
+        engine.undo();
+        assertTrue(engine.canRedo());
+        engine.flag(other);
+        assertFalse(engine.canRedo(), "Flagging elsewhere starts a new line of play");
+        assertTrue(engine.undo());
+        assertFalse(engine.getCells().isFlagged(other));
+        assertFalse(engine.canUndo());
+    }
+
+    @Test
+    void testUndoKeepsJournalReplayable() {
+        engine.setHistory(new MoveHistory());
+        MoveJournal journal = new MoveJournal();
+        engine.setJournal(journal);
+        EventLog log = new EventLog();
+        engine.addListener(log);
+        int mine = engine.getCells().nextMine(0);
+
+        engine.flag(mine);
+        engine.reveal(engine.getCells().nextMine(mine + 1));
+        engine.undo();
+
+        assertTrue(engine.isInGame(), "Undoing the losing move resumes the game");
+        assertEquals(1, journal.size());
+        assertEquals(state(engine), state(journal.replay(journal.size())));
+        assertEquals("undone 1", log.events.get(log.events.size() - 1));
+    }
+
+    @Test
+    void testUndoingTheFirstRevealTakesBackTheDeal() {
+        GameEngine lazy = new GameEngine();
+        lazy.newGame(5L);
+        lazy.setHistory(new MoveHistory());
+        MoveJournal journal = new MoveJournal();
+        lazy.setJournal(journal);
+
+        lazy.reveal(0);
+        assertTrue(lazy.areMinesPlaced());
+        assertTrue(lazy.undo());
+        assertFalse(lazy.areMinesPlaced(), "The reveal that dealt is gone");
+
+        lazy.reveal(200);
+        assertEquals(state(lazy), state(journal.replay(journal.size())));
+        lazy.undo();
+        assertTrue(lazy.redo());
+        assertEquals(state(lazy), state(journal.replay(journal.size())), "Redo deals the same again");
+    }
+
+    @Test
+    void testRolledBackFirstRevealIsNotDealt() {
+        GameEngine lazy = new GameEngine();
+        lazy.newGame(5L);
+        MoveJournal journal = new MoveJournal();
+        lazy.setJournal(journal);
+        long[] moves = { Moves.encode(0, Moves.REVEAL, 0), Moves.encode(5, Moves.REVEAL, 0) };
+
+        assertFalse(lazy.applyBatch(moves, 2, new int[2]));
+        assertFalse(lazy.areMinesPlaced());
+
+        lazy.reveal(200);
+        assertEquals(state(lazy), state(journal.replay(journal.size())));
+    }
+
+    @Test
+    void testRefusedBatchLeavesNoHistory() {
+        engine.setHistory(new MoveHistory());
+        engine.newGame(7L);
+        int mine = engine.getCells().nextMine(0);
+        engine.flag(mine);
+
+        long[] moves = { Moves.encode(mine, Moves.UNFLAG, 0), Moves.encode(mine, Moves.FLAG, 1) };
+        assertFalse(engine.applyBatch(moves, 2, new int[2]));
+        assertEquals(1, engine.getHistory().size());
+        assertTrue(engine.undo());
+        assertFalse(engine.getCells().isFlagged(mine));
+    }
+
+    @Test
+    void testUndoWithoutHistory() {
+        engine.reveal(0);
+        assertFalse(engine.canUndo());
+        assertFalse(engine.undo());
+        assertFalse(engine.redo());
+    }
+}
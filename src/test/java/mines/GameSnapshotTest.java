@@ -0,0 +1,190 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSnapshotTest {
+
+    private static byte[] save(GameSnapshot snapshot, GameEngine... engines) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(bytes);
+        for (GameEngine engine : engines) {
+            snapshot.write(engine, channel);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static GameEngine playSomeMoves(BoardConfig config, long seed) {
+        GameEngine engine = new GameEngine(config);
+        engine.newGame(seed);
+        int mine = engine.getCells().nextMine(0);
+        engine.flag(mine);
+        for (int pos = 0, reveals = 0; pos < engine.getAllCells() && reveals < 3; pos++) {
+            if (!engine.getCells().isMine(pos) && engine.reveal(pos)) reveals++;
+        }
+        return engine;
+    }
+
+    private static void assertSameGame(GameEngine expected, GameEngine actual) {
+        assertEquals(expected.getConfig().toString(), actual.getConfig().toString());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.isInGame(), actual.isInGame());
+        assertEquals(expected.isGameWon(), actual.isGameWon());
+        assertEquals(expected.getCurrentPlayer(), actual.getCurrentPlayer());
+        assertEquals(expected.getMinesLeft(), actual.getMinesLeft());
+        assertArrayEquals(expected.getPlayerFlags(), actual.getPlayerFlags());
+        assertArrayEquals(expected.getField(), actual.getField());
+        assertArrayEquals(expected.getMarkers(), actual.getMarkers());
+        assertEquals(expected.getUncoveredSafeCells(), actual.getUncoveredSafeCells());
+        assertEquals(expected.getCorrectlyFlaggedMines(), actual.getCorrectlyFlaggedMines());
+    }
+
+    @Test
+    void testRoundTripRestoresGameInProgress() throws IOException {
+        GameEngine original = playSomeMoves(BoardConfig.EXPERT, 11L);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        original.save(Channels.newChannel(bytes));
+        assertEquals(GameSnapshot.sizeOf(original), bytes.size());
+
+        GameEngine restored = new GameEngine();
+        restored.load(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertSameGame(original, restored);
+    }
+
+    @Test
+    void testRestoredGameKeepsPlaying() throws IOException {
+        GameEngine original = playSomeMoves(BoardConfig.INTERMEDIATE, 5L);
+        byte[] bytes = save(new GameSnapshot(), original);
+        GameEngine restored = new GameEngine(BoardConfig.BEGINNER);
+        new GameSnapshot().read(restored, Channels.newChannel(new ByteArrayInputStream(bytes)));
+
+        int mine = original.getCells().nextMine(0);
+        assertEquals(original.reveal(mine), restored.reveal(mine));
+        assertSameGame(original, restored);
+    }
+
+    @Test
+    void testSmallBufferAndLargeBoard() throws IOException {
+        GameEngine original = playSomeMoves(BoardConfig.custom(300, 200, 5000), 3L);
+        GameSnapshot snapshot = new GameSnapshot(64);
+
+        byte[] bytes = save(snapshot, original);
+        GameEngine restored = new GameEngine();
+        snapshot.read(restored, Channels.newChannel(new ByteArrayInputStream(bytes)));
+
+        assertSameGame(original, restored);
+    }
+
+    @Test
+    void testSnapshotsCanShareAChannel() throws IOException {
+        GameEngine first = playSomeMoves(BoardConfig.BEGINNER, 1L);
+        GameEngine second = playSomeMoves(BoardConfig.EXPERT, 2L);
+        GameSnapshot snapshot = new GameSnapshot();
+
+        ReadableByteChannel in = Channels.newChannel(new ByteArrayInputStream(save(snapshot, first, second)));
+        GameEngine a = new GameEngine();
+        GameEngine b = new GameEngine();
+        snapshot.read(a, in);
+        snapshot.read(b, in);
+
+        assertSameGame(first, a);
+        assertSameGame(second, b);
+    }
+
+    @Test
+    void testUndealtGameKeepsItsFirstClickRule() throws IOException {
+        GameEngine original = new GameEngine(BoardConfig.INTERMEDIATE);
+        original.newGame(9L);
+        byte[] bytes = save(new GameSnapshot(), original);
+
+        GameEngine restored = new GameEngine();
+        restored.dealGame(BoardConfig.BEGINNER, 1L, false, false);
+        restored.load(Channels.newChannel(new ByteArrayInputStream(bytes)));
+        assertFalse(restored.areMinesPlaced());
+        assertTrue(restored.isFirstClickSafe());
+
+        original.reveal(0);
+        restored.reveal(0);
+        assertSameGame(original, restored);
+    }
+
+    @Test
+    void testStatusBitsAreCheckedAgainstTheVersion() throws IOException {
+        GameEngine engine = playSomeMoves(BoardConfig.BEGINNER, 4L);
+        byte[] bytes = save(new GameSnapshot(), engine);
+
+        byte[] unknown = bytes.clone();
+        unknown[6] |= 16;
+        assertThrows(IOException.class, () -> new GameEngine().load(Channels.newChannel(new ByteArrayInputStream(unknown))));
+
+        // version 1 had no undealt or first-click bits, and still loads
+        byte[] v1 = bytes.clone();
+        v1[5] = 1;
+        v1[6] &= 3;
+        GameEngine restored = new GameEngine();
+        restored.load(Channels.newChannel(new ByteArrayInputStream(v1)));
+        assertSameGame(engine, restored);
+
+        v1[6] |= 4;
+        assertThrows(IOException.class, () -> new GameEngine().load(Channels.newChannel(new ByteArrayInputStream(v1))));
+    }
+
+    @Test
+    void testRejectsForeignAndTruncatedData() throws IOException {
+        GameEngine engine = new GameEngine();
+        byte[] garbage = new byte[64];
+        IOException notSnapshot = assertThrows(IOException.class,
+                () -> engine.load(Channels.newChannel(new ByteArrayInputStream(garbage))));
+        assertEquals("Not a game snapshot", notSnapshot.getMessage());
+
+        byte[] bytes = save(new GameSnapshot(), engine);
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        assertThrows(EOFException.class,
+                () -> engine.load(Channels.newChannel(new ByteArrayInputStream(truncated))));
+    }
+
+    @Test
+    void testFailedLoadLeavesTheEngineAsItWas() throws IOException {
+        GameEngine engine = playSomeMoves(BoardConfig.INTERMEDIATE, 6L);
+        GameEngine same = playSomeMoves(BoardConfig.INTERMEDIATE, 6L);
+        byte[] bytes = save(new GameSnapshot(), playSomeMoves(BoardConfig.EXPERT, 7L));
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 8);
+        assertThrows(EOFException.class, () -> engine.load(Channels.newChannel(new ByteArrayInputStream(truncated))));
+        byte[] badPlayer = bytes.clone();
+        badPlayer[7] = 2;
+        assertThrows(IOException.class, () -> engine.load(Channels.newChannel(new ByteArrayInputStream(badPlayer))));
+        byte[] doubleFlag = bytes.clone();
+        doubleFlag[doubleFlag.length - 1] = doubleFlag[doubleFlag.length - 1 - 8 * 8] = 1;
+        assertThrows(IOException.class, () -> engine.load(Channels.newChannel(new ByteArrayInputStream(doubleFlag))));
+
+        assertSameGame(same, engine);
+    }
+
+    @Test
+    void testHugeHeaderOnAShortStreamIsRefusedCheaply() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(GameSnapshot.HEADER_BYTES);
+        header.putInt(GameSnapshot.MAGIC).putShort(GameSnapshot.VERSION)
+              .put((byte) 1).put((byte) 0)
+              .putInt(46340).putInt(46340).putInt(10)
+              .putLong(1L).putInt(10);
+
+        GameEngine engine = new GameEngine();
+        assertThrows(EOFException.class,
+                () -> engine.load(Channels.newChannel(new ByteArrayInputStream(header.array()))));
+        assertEquals(BoardConfig.INTERMEDIATE.getAllCells(), engine.getAllCells());
+    }
+}
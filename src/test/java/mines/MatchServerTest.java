@@ -0,0 +1,176 @@
+package mines;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchServerTest {
+
+    private MatchServer server;
+    private final List<Socket> sockets = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MatchServer(0, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        server.close();
+    }
+
+    private Client connect() throws IOException {
+        Socket socket = new Socket("127.0.0.1", server.getPort());
+        sockets.add(socket);
+        return new Client(socket);
+    }
+
+    @Test
+    @Timeout(10)
+    void testTwoPlayersPlayOverTcp() throws IOException {
+        GameEngine reference = new GameEngine(BoardConfig.BEGINNER);
+        reference.newGame(7L);
+        int safe = 0;
+        while (reference.getCells().isMine(safe)) safe++;
+
+        Client alice = connect();
+        Client bob = connect();
+
+        assertEquals("MATCH 1 0", alice.ask("NEW 9 9 10 7"));
+        assertEquals("MATCH 1 1", bob.ask("JOIN 1"));
+
+        assertEquals("ERR not your turn", bob.ask("REVEAL " + safe));
+        assertEquals("MOVED 0 R " + safe, alice.ask("REVEAL " + safe));
+        assertEquals("OK", alice.readLine());
+        assertEquals("MOVED 0 R " + safe, bob.readLine());
+
+        String state = bob.ask("STATE");
+        assertTrue(state.startsWith("STATE ") && state.contains(" 1 10 0 0"), state);
+    }
+
+    @Test
+    @Timeout(10)
+    void testLeavingPlayerEndsTheMatch() throws IOException {
+        Client alice = connect();
+        Client bob = connect();
+        assertEquals("MATCH 1 0", alice.ask("NEW 9 9 10 7"));
+        assertEquals("MATCH 1 1", bob.ask("JOIN 1"));
+
+        alice.send("QUIT");
+        assertEquals("END LEFT 0", bob.readLine());
+        assertEquals("ERR no such match", connect().ask("JOIN 1"));
+    }
+
+    @Test
+    @Timeout(10)
+    void testErrorsAndPing() throws IOException {
+        Client client = connect();
+
+        assertEquals("PONG", client.ask("PING"));
+        assertEquals("ERR not in a match", client.ask("STATE"));
+        assertEquals("ERR no such match", client.ask("JOIN 99"));
+        assertEquals("ERR bad arguments", client.ask("REVEAL"));
+        assertEquals("ERR unknown command DANCE", client.ask("DANCE"));
+        assertTrue(client.ask("NEW 0 0 0").startsWith("ERR "), "Invalid board should be refused");
+        assertEquals("ERR bad arguments", client.ask("NEW 9 9"));
+        assertTrue(client.ask("NEW 46340 46340 10").startsWith("ERR board larger"), "Servers cap board sizes");
+        assertTrue(client.ask("NEW 300 300 10").startsWith("ERR board larger"));
+        assertEquals(0, server.getMatchCount());
+    }
+
+    @Test
+    @Timeout(10)
+    void testNoGuessMatchStartsOpened() throws IOException {
+        Client client = connect();
+
+        assertEquals("MATCH 1 0", client.ask("NEW 9 9 10 7 NOGUESS"));
+        String board = client.ask("BOARD");
+        assertTrue(board.substring("BOARD 9 9 ".length()).contains("0"), board);
+    }
+
+    @Test
+    @Timeout(10)
+    void testNoGuessMatchOfAClosedClientIsDropped() throws Exception {
+        Socket gone = new Socket("127.0.0.1", server.getPort());
+        new PrintWriter(gone.getOutputStream(), true).println("NEW 9 9 10 7 NOGUESS");
+        gone.close();
+
+        // the same search, so the first one has finished when this one has
+        Client client = connect();
+        assertTrue(client.ask("NEW 9 9 10 7 NOGUESS").startsWith("MATCH "));
+        Thread.sleep(200);
+        assertEquals(1, server.getMatchCount());
+    }
+
+    @Test
+    @Timeout(10)
+    void testNoGuessSearchesAreLimitedAndFailuresReported() throws Exception {
+        server.close();
+        server = new MatchServer(0, 2, new NoGuessGenerator(ForkJoinPool.commonPool(), 1000), 1);
+
+        // no zero cell is possible here, so the search runs its whole budget
+        Client first = connect();
+        first.send("NEW 3 3 8 NOGUESS");
+        Thread.sleep(100);
+        Client second = connect();
+        assertEquals("ERR busy", second.ask("NEW 9 9 10 7 NOGUESS"));
+
+        assertEquals("ERR no no-guess board found", first.readLine());
+        assertEquals(0, server.getMatchCount());
+        assertTrue(second.ask("NEW 9 9 10 7 NOGUESS").startsWith("MATCH "), "the search slot is free again");
+    }
+
+    @Test
+    @Timeout(10)
+    void testManyMatchesAreIndependent() throws IOException {
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Client client = connect();
+            clients.add(client);
+            assertTrue(client.ask("NEW").startsWith("MATCH "));
+        }
+        assertEquals(50, server.getMatchCount());
+        for (Client client : clients) {
+            assertTrue(client.ask("STATE").startsWith("STATE PLAYING 0 40"));
+        }
+    }
+
+    private static final class Client {
+        private final BufferedReader in;
+        private final PrintWriter out;
+
+        Client(Socket socket) throws IOException {
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new PrintWriter(socket.getOutputStream(), true);
+        }
+
+        String ask(String command) throws IOException {
+            out.println(command);
+            return in.readLine();
+        }
+
+        void send(String command) {
+            out.println(command);
+        }
+
+        String readLine() throws IOException {
+            return in.readLine();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package mines;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchTest {
+
+    private static final long SEED = 42L;
+    private static final int FIRST = 40;  // the centre; the first reveal is always safe
+
+    private Match match;
+    private List<String> p1;
+    private List<String> p2;
+    private GameEngine reference;
+
+    @BeforeEach
+    void setUp() {
+        match = new Match(1, BoardConfig.BEGINNER, SEED);
+        p1 = new ArrayList<>();
+        p2 = new ArrayList<>();
+
+        // Same config, seed and first click, so the test knows where the mines are
+        reference = new GameEngine(BoardConfig.BEGINNER);
+        reference.newGame(SEED);
+    }
+
+    // Both seats joined; the first seat reveals FIRST, which deals the mines.
+    private void startPlaying() {
+        match.join(p1::add);
+        match.join(p2::add);
+        assertNull(match.move(0, true, FIRST));
+        reference.reveal(FIRST);
+    }
+
+    private int mineCell() {
+        return reference.getCells().nextMine(0);
+    }
+
+    @Test
+    void testJoinFillsTwoSeats() {
+        assertEquals(0, match.join(p1::add));
+        assertEquals(1, match.join(p2::add));
+        assertEquals(GameEngine.NO_PLAYER, match.join(line -> { }), "Third player should be refused");
+    }
+
+    @Test
+    void testMoveWaitsForOpponent() {
+        match.join(p1::add);
+        assertEquals("waiting for opponent", match.move(0, true, FIRST));
+    }
+
+    @Test
+    void testTurnsAreEnforcedAndMovesBroadcast() {
+        match.join(p1::add);
+        match.join(p2::add);
+        int pos = FIRST;
+
+        assertEquals("not your turn", match.move(1, true, pos));
+        assertNull(match.move(0, true, pos));
+
+        assertEquals("MOVED 0 R " + pos, p1.get(0));
+        assertEquals("MOVED 0 R " + pos, p2.get(0));
+        assertTrue(match.state().startsWith("PLAYING 1 "), "Turn should pass to the second seat");
+        assertEquals("illegal move", match.move(1, true, pos), "Cell is already open");
+    }
+
+    @Test
+    void testRevealingMineEndsMatch() {
+        startPlaying();
+
+        assertNull(match.move(1, true, mineCell()));
+
+        assertEquals("END LOST 1", p1.get(p1.size() - 1));
+        assertTrue(match.state().startsWith("LOST"));
+        assertEquals("game over", match.move(0, true, 0));
+    }
+
+    @Test
+    void testBoardShowsPlayerView() {
+        startPlaying();
+        int mine = mineCell();
+        match.move(1, false, mine);
+
+        String board = match.board();
+        assertTrue(board.startsWith("9 9 "));
+        assertEquals('f', board.charAt(4 + mine), "Flag of the second seat");
+        assertEquals(Match.symbol(reference, FIRST), board.charAt(4 + FIRST));
+        assertEquals(81, board.length() - 4);
+    }
+
+    @Test
+    void testLeaveReportsEmptyMatch() {
+        Match.Seat a = p1::add;
+        match.join(a);
+
+        assertTrue(match.leave(a));
+        assertEquals(0, match.join(p2::add), "Nobody played yet, so the seat is free again");
+    }
+
+    @Test
+    void testLeavingARunningGameEndsIt() {
+        Match.Seat a = p1::add;
+        Match.Seat b = p2::add;
+        match.join(a);
+        match.join(b);
+        assertNull(match.move(0, true, FIRST));
+
+        assertTrue(match.leave(a), "A match that lost a player is no longer listed");
+        assertEquals("END LEFT 0", p2.get(p2.size() - 1));
+        assertTrue(match.state().startsWith("LEFT "));
+        assertEquals("game over", match.move(1, true, 0));
+        assertEquals(GameEngine.NO_PLAYER, match.join(line -> { }), "The seat cannot be taken over");
+
+        int heard = p2.size();
+        assertTrue(match.leave(b));
+        assertEquals(heard, p2.size());
+    }
+}
@@ -0,0 +1,93 @@
+package mines;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @BeforeEach
+    void setUp() {
+        Metrics.get().reset();
+        Metrics.enable(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.enable(false);
+        Metrics.get().reset();
+    }
+
+    @Test
+    void testHistogramPercentilesAreBucketBounds() {
+        Metrics.Histogram histogram = new Metrics.Histogram();
+        for (int i = 0; i < 99; i++) histogram.record(1_000);   // bucket below 1024 ns
+        histogram.record(1_000_000);
+
+        assertEquals(100, histogram.count());
+        assertEquals(1_023, histogram.percentile(0.5));
+        assertEquals(1_023, histogram.percentile(0.99));
+        assertEquals(1_000_000, histogram.percentile(1.0), "Capped at the largest value seen");
+        assertEquals(1_000_000, histogram.max());
+
+        MetricsMXBean.Latency latency = histogram.snapshot();
+        assertEquals(100, latency.getCount());
+        assertEquals((99 * 1_000 + 1_000_000) / 100.0 / 1000.0, latency.getMeanMicros(), 1e-9);
+    }
+
+    @Test
+    void testDisabledMetricsRecordNothing() {
+        Metrics.enable(false);
+        assertEquals(0L, Metrics.start());
+        Metrics.PAINT.recordSince(Metrics.start());
+        Metrics.MOVES.increment();
+
+        assertEquals(0, Metrics.PAINT.count());
+        assertEquals(0, Metrics.MOVES.get());
+    }
+
+    @Test
+    void testEngineFeedsMetrics() {
+        GameEngine engine = new GameEngine();  // deals a first game
+        engine.newGame(7L);
+        engine.reveal(0);  // the first reveal is an opening
+
+        assertEquals(2, Metrics.GAMES.get());
+        assertEquals(2, Metrics.NEW_GAME.count());
+        assertEquals(1, Metrics.FLOOD_FILL.count());
+        assertEquals(engine.getUncoveredSafeCells() - 1, Metrics.CELLS_FLOODED.get());
+    }
+
+    @Test
+    void testExposedOverJmx() throws Exception {
+        Metrics.register();
+        Metrics.register();  // harmless twice
+        Metrics.MOVES.add(3);
+        Metrics.PAINT.record(2_000);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+        assertEquals(Boolean.TRUE, server.getAttribute(name, "Enabled"));
+
+        TabularData counters = (TabularData) server.getAttribute(name, "Counters");
+        CompositeData moves = counters.get(new Object[] {"moves"});
+        assertEquals(3L, moves.get("value"));
+
+        TabularData latencies = (TabularData) server.getAttribute(name, "Latencies");
+        CompositeData paint = (CompositeData) latencies.get(new Object[] {"paint"}).get("value");
+        assertEquals(1L, paint.get("count"));
+        assertEquals(2.0, (Double) paint.get("maxMicros"), 1e-9);
+
+        server.invoke(name, "reset", new Object[0], new String[0]);
+        assertEquals(0, Metrics.MOVES.get());
+    }
+}
@@ -0,0 +1,187 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MineProbabilitiesTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private static PackedCells board(int rows, int cols, int[] mines, int[] revealed) {
+        GameEngine engine = new GameEngine(BoardConfig.custom(rows, cols, mines.length));
+        PackedCells cells = engine.getCells();
+        cells.clear();
+        for (int mine : mines) cells.setMine(mine, true);
+        for (int mine : mines) engine.incrementNeighbors(mine);
+        for (int pos : revealed) cells.setRevealed(pos, true);
+        return cells;
+    }
+
+    @Test
+    void testSymmetricPairWithInterior() {
+        // 1x5, mine at 0; the 1 at cell 1 covers cells 0 and 2
+        PackedCells cells = board(1, 5, new int[]{0}, new int[]{1});
+        MineProbabilities probabilities = new MineProbabilities();
+
+        probabilities.compute(cells, 1, 5, 1);
+        assertEquals(0.5, probabilities.probability(0), EPSILON);
+        assertEquals(0.5, probabilities.probability(2), EPSILON);
+        assertEquals(0.0, probabilities.probability(3), EPSILON);
+        assertTrue(Double.isNaN(probabilities.probability(1)));
+
+        probabilities.compute(cells, 1, 5, 2);
+        assertEquals(0.5, probabilities.probability(0), EPSILON);
+        assertEquals(0.5, probabilities.interiorProbability(), EPSILON);
+    }
+
+    @Test
+    void testMatchesBruteForceOnSmallBoards() {
+        Random random = new Random(5);
+        MineProbabilities probabilities = new MineProbabilities();
+        for (int round = 0; round < 30; round++) {
+            int rows = 4;
+            int cols = 5;
+            int size = rows * cols;
+            int mineCount = 3 + random.nextInt(4);
+            boolean[] isMine = new boolean[size];
+            int[] mines = new int[mineCount];
+            for (int i = 0; i < mineCount; ) {
+                int p = random.nextInt(size);
+                if (!isMine[p]) { isMine[p] = true; mines[i++] = p; }
+            }
+            int[] revealed = new int[size];
+            int r = 0;
+            for (int p = 0; p < size; p++) {
+                if (!isMine[p] && random.nextInt(3) == 0) revealed[r++] = p;
+            }
+            PackedCells cells = board(rows, cols, mines, java.util.Arrays.copyOf(revealed, r));
+
+            probabilities.compute(cells, rows, cols, mineCount);
+            double[] expected = bruteForce(cells, rows, cols, mineCount);
+            for (int p = 0; p < size; p++) {
+                if (cells.isRevealed(p)) continue;
+                assertEquals(expected[p], probabilities.probability(p), 1e-9, "round " + round + " cell " + p);
+            }
+        }
+    }
+
+    // Tries every placement of the mines over the covered cells.
+    private static double[] bruteForce(PackedCells cells, int rows, int cols, int mines) {
+        int size = rows * cols;
+        int[] covered = new int[size];
+        int n = 0;
+        for (int p = 0; p < size; p++) if (!cells.isRevealed(p)) covered[n++] = p;
+
+        double[] hits = new double[size];
+        long solutions = 0;
+        for (int mask = 0; mask < (1 << n); mask++) {
+            if (Integer.bitCount(mask) != mines) continue;
+            boolean[] mine = new boolean[size];
+            for (int i = 0; i < n; i++) if ((mask & (1 << i)) != 0) mine[covered[i]] = true;
+            if (!consistent(cells, rows, cols, mine)) continue;
+            solutions++;
+            for (int p = 0; p < size; p++) if (mine[p]) hits[p]++;
+        }
+        for (int p = 0; p < size; p++) hits[p] /= solutions;
+        return hits;
+    }
+
+    private static boolean consistent(PackedCells cells, int rows, int cols, boolean[] mine) {
+        for (int p = 0; p < rows * cols; p++) {
+            if (!cells.isRevealed(p)) continue;
+            int around = 0;
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    int r = p / cols + dr;
+                    int c = p % cols + dc;
+                    if ((dr != 0 || dc != 0) && r >= 0 && r < rows && c >= 0 && c < cols && mine[r * cols + c]) around++;
+                }
+            }
+            if (around != cells.count(p)) return false;
+        }
+        return true;
+    }
+
+    @Test
+    void testUntouchedComponentsComeFromCache() {
+        GameEngine engine = new GameEngine(BoardConfig.EXPERT);
+        engine.newGame(3L);
+        engine.reveal(engine.findOpening());
+        MineProbabilities probabilities = new MineProbabilities();
+
+        probabilities.compute(engine);
+        assertTrue(probabilities.enumeratedComponents() > 0);
+        probabilities.compute(engine);
+        assertEquals(0, probabilities.enumeratedComponents());
+    }
+
+    @Test
+    void testAgreesWithSolverOnCertainCells() {
+        GameEngine engine = new GameEngine(BoardConfig.INTERMEDIATE);
+        engine.newGame(17L);
+        engine.reveal(engine.findOpening());
+        Solver solver = new Solver();
+        solver.solve(engine);
+        MineProbabilities probabilities = new MineProbabilities();
+        probabilities.compute(engine);
+
+        for (int i = 0; i < solver.safeCount(); i++) {
+            assertEquals(0.0, probabilities.probability(solver.safeCell(i)), EPSILON);
+        }
+        for (int i = 0; i < solver.mineCount(); i++) {
+            assertEquals(1.0, probabilities.probability(solver.mineCell(i)), EPSILON);
+        }
+        int safest = probabilities.safestCell();
+        assertFalse(engine.getCells().isRevealed(safest));
+    }
+
+    @Test
+    @Timeout(10)
+    void testWideLooseFrontierIsCountedWithoutListingSolutions() {
+        // a revealed middle row between two covered rows: one component of
+        // 120 cells with far too many solutions to list one by one
+        int rows = 3;
+        int cols = 60;
+        Random random = new Random(8);
+        int[] mines = new int[40];
+        boolean[] isMine = new boolean[rows * cols];
+        for (int i = 0; i < mines.length; ) {
+            int p = random.nextInt(cols) + (random.nextBoolean() ? 0 : 2 * cols);
+            if (!isMine[p]) { isMine[p] = true; mines[i++] = p; }
+        }
+        int[] middle = new int[cols];
+        for (int c = 0; c < cols; c++) middle[c] = cols + c;
+        PackedCells cells = board(rows, cols, mines, middle);
+
+        MineProbabilities probabilities = new MineProbabilities();
+        probabilities.compute(cells, rows, cols, mines.length);
+        assertTrue(probabilities.isComplete());
+        double expectedMines = 0;
+        for (int p = 0; p < rows * cols; p++) {
+            if (!cells.isRevealed(p)) expectedMines += probabilities.probability(p);
+        }
+        assertEquals(mines.length, expectedMines, 1e-6);
+    }
+
+    @Test
+    void testComponentOverNodeLimitLeavesTheBoardUnknown() {
+        PackedCells cells = board(1, 5, new int[]{0}, new int[]{1});
+        MineProbabilities probabilities = new MineProbabilities(1);
+
+        probabilities.compute(cells, 1, 5, 1);
+        assertFalse(probabilities.isComplete());
+        assertTrue(Double.isNaN(probabilities.probability(0)));
+        // the interior depends on how many mines the component holds
+        assertTrue(Double.isNaN(probabilities.probability(3)));
+        assertTrue(Double.isNaN(probabilities.interiorProbability()));
+        assertEquals(-1, probabilities.safestCell());
+
+        probabilities = new MineProbabilities();
+        probabilities.compute(cells, 1, 5, 1);
+        assertTrue(probabilities.isComplete());
+    }
+}
@@ -67,7 +67,7 @@ class MinesTest {
             assertEquals(290, size.height, "Frame height should be 290");
 
             // Test frame resizability
-            assertFalse(mines.isResizable(), "Frame should not be resizable");
+            assertTrue(mines.isResizable(), "Frame should be resizable");
 
             // Test default close operation
             assertEquals(WindowConstants.EXIT_ON_CLOSE, 
@@ -94,7 +94,7 @@ class MinesTest {
             boolean statusBarFound = false;
 
             for (Component comp : components) {
-                if (comp instanceof Board) {
+                if (comp instanceof JScrollPane && ((JScrollPane) comp).getViewport().getView() instanceof Board) {
                     boardFound = true;
                 }
                 if (comp instanceof JLabel) {
@@ -212,9 +212,9 @@ class MinesTest {
             // Check that Board is properly added
             boolean hasBoard = false;
             for (Component comp : components) {
-                if (comp instanceof Board) {
+                if (comp instanceof JScrollPane && ((JScrollPane) comp).getViewport().getView() instanceof Board) {
                     hasBoard = true;
-                    Board board = (Board) comp;
+                    Board board = (Board) ((JScrollPane) comp).getViewport().getView();
                     assertNotNull(board, "Board instance should not be null");
                     break;
                 }
@@ -0,0 +1,78 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveHistoryTest {
+
+    private static void move(MoveHistory history, int pos, int changes) {
+        history.beginMove(Moves.encode(pos, Moves.REVEAL, 0));
+        for (int i = 0; i < changes; i++) history.change(Moves.encode(pos + i, Moves.REVEAL, 0));
+    }
+
+    @Test
+    void testEntriesKeepTheirChanges() {
+        MoveHistory history = new MoveHistory();
+        move(history, 10, 1);
+        move(history, 20, 5);
+
+        assertEquals(2, history.size());
+        assertEquals(1, history.undoEntry());
+        assertEquals(20, Moves.position(history.move(1)));
+        assertEquals(5, history.end(1) - history.start(1));
+        assertEquals(24, Moves.position(history.changeAt(history.end(1) - 1)));
+        assertEquals(2 * 12 + 6 * 8, history.bytes());
+    }
+
+    @Test
+    void testCapDropsOldestEntries() {
+        MoveHistory history = new MoveHistory(1000);
+        for (int i = 0; i < 100; i++) move(history, i * 10, 3);
+
+        assertTrue(history.bytes() <= 1000 + 12 + 3 * 8, "Over the cap by at most the newest move");
+        assertEquals(history.size(), history.position());
+        assertEquals(990, Moves.position(history.move(history.undoEntry())), "Newest move kept");
+        int oldest = Moves.position(history.move(0));
+        assertTrue(oldest > 0, "Oldest moves dropped");
+        assertEquals(oldest, Moves.position(history.changeAt(history.start(0))), "Changes dropped with them");
+    }
+
+    @Test
+    void testRedoDoesNotRecordTwice() {
+        MoveHistory history = new MoveHistory();
+        move(history, 10, 2);
+        move(history, 20, 2);
+        history.stepBack();
+        assertTrue(history.canRedo());
+
+        history.beginRedo();
+        move(history, 20, 2);
+        history.endRedo();
+        assertEquals(2, history.size());
+        assertEquals(4 * 8 + 2 * 12, history.bytes());
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    void testDropNewest() {
+        MoveHistory history = new MoveHistory();
+        move(history, 10, 2);
+        move(history, 20, 3);
+        move(history, 30, 4);
+
+        history.dropNewest(2);
+        assertEquals(1, history.size());
+        assertEquals(2, history.end(0));
+        assertFalse(history.canRedo());
+
+        history.dropNewest(5);
+        assertEquals(0, history.size());
+        assertFalse(history.canUndo());
+    }
+
+    @Test
+    void testRejectsNonPositiveCap() {
+        assertThrows(IllegalArgumentException.class, () -> new MoveHistory(0));
+    }
+}
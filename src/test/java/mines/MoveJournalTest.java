@@ -0,0 +1,214 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveJournalTest {
+
+    // Alternates reveals of safe cells with a flag on a mine now and then.
+    private static GameEngine playRecorded(MoveJournal journal, long seed, int reveals) {
+        GameEngine engine = new GameEngine(BoardConfig.EXPERT);
+        engine.newGame(seed);
+        engine.setJournal(journal);
+        int mine = -1;
+        for (int pos = 0, done = 0; pos < engine.getAllCells() && done < reveals && engine.isInGame(); pos++) {
+            if (engine.getCells().isMine(pos)) continue;
+            if (engine.reveal(pos)) {
+                done++;
+                if (done % 3 == 0 && (mine = engine.getCells().nextMine(mine + 1)) >= 0) {
+                    engine.flag(mine);
+                }
+            }
+        }
+        return engine;
+    }
+
+    private static void assertSameBoard(GameEngine expected, GameEngine actual) {
+        assertArrayEquals(expected.getField(), actual.getField());
+        assertArrayEquals(expected.getMarkers(), actual.getMarkers());
+        assertEquals(expected.getCurrentPlayer(), actual.getCurrentPlayer());
+        assertEquals(expected.getMinesLeft(), actual.getMinesLeft());
+        assertEquals(expected.isInGame(), actual.isInGame());
+    }
+
+    @Test
+    void testRecordsEverySuccessfulMove() {
+        MoveJournal journal = new MoveJournal();
+        GameEngine engine = new GameEngine(BoardConfig.custom(5, 5, 1));
+        engine.setFirstClickSafe(false);
+        engine.newGame(3L);
+        engine.setJournal(journal);
+        int mine = engine.getCells().nextMine(0);
+
+        assertTrue(engine.flag(mine));
+        assertFalse(engine.flag(mine));       // already flagged, not recorded
+        assertTrue(engine.unflag(mine));
+
+        assertEquals(2, journal.size());
+        assertEquals(Moves.encode(mine, Moves.FLAG, 0), journal.get(0));
+        assertEquals(Moves.encode(mine, Moves.UNFLAG, 0), journal.get(1));
+    }
+
+    @Test
+    void testReplayRebuildsFinalState() {
+        MoveJournal journal = new MoveJournal();
+        GameEngine original = playRecorded(journal, 42L, 30);
+        assertTrue(journal.size() > 30);
+
+        assertSameBoard(original, journal.replay(journal.size()));
+    }
+
+    @Test
+    void testReplayToIntermediateMove() {
+        MoveJournal journal = new MoveJournal();
+        playRecorded(journal, 7L, 20);
+        int halfway = journal.size() / 2;
+
+        MoveJournal prefix = new MoveJournal();
+        GameEngine expected = new GameEngine(BoardConfig.EXPERT);
+        expected.newGame(7L);
+        expected.setJournal(prefix);
+        for (int i = 0; i < halfway; i++) {
+            assertTrue(expected.apply(journal.get(i)));
+        }
+
+        GameEngine replayed = new GameEngine(BoardConfig.BEGINNER);
+        journal.replayInto(replayed, halfway);
+        assertSameBoard(expected, replayed);
+        assertEquals(halfway, prefix.size());
+    }
+
+    @Test
+    void testNewGameRestartsJournal() {
+        MoveJournal journal = new MoveJournal();
+        GameEngine engine = playRecorded(journal, 5L, 5);
+        engine.newGame(BoardConfig.BEGINNER, 99L);
+
+        assertEquals(0, journal.size());
+        assertEquals(99L, journal.getSeed());
+        assertEquals(BoardConfig.BEGINNER, journal.getConfig());
+    }
+
+    @Test
+    void testApplyRejectsMoveOutOfTurn() {
+        GameEngine engine = new GameEngine(BoardConfig.custom(5, 5, 1));
+        engine.newGame(3L);
+        int safe = engine.getCells().isMine(0) ? 1 : 0;
+
+        assertFalse(engine.apply(Moves.encode(safe, Moves.REVEAL, 1)));
+        assertTrue(engine.apply(Moves.encode(safe, Moves.REVEAL, 0)));
+    }
+
+    @Test
+    void testReplayKeepsThePlacementMode() throws IOException {
+        for (boolean firstClickSafe : new boolean[] {true, false}) {
+            MoveJournal journal = new MoveJournal();
+            GameEngine engine = new GameEngine(BoardConfig.BEGINNER);
+            engine.setFirstClickSafe(firstClickSafe);
+            engine.newGame(5L);
+            engine.setJournal(journal);
+            int first = 40;
+            while (engine.getCells().isMine(first)) first++;
+            engine.reveal(first);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            journal.writeTo(Channels.newChannel(bytes));
+            MoveJournal read = MoveJournal.readFrom(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+
+            assertEquals(firstClickSafe, read.isFirstClickSafe());
+            GameEngine replayed = read.replay(1);
+            assertArrayEquals(engine.getField(), replayed.getField(), "Same mines whichever way they were placed");
+        }
+    }
+
+    @Test
+    void testDivergentJournalIsReported() {
+        MoveJournal journal = new MoveJournal();
+        journal.start(BoardConfig.custom(5, 5, 1), 3L, false, false);
+        journal.append(Moves.encode(0, Moves.UNFLAG, 0));
+
+        assertThrows(IllegalStateException.class, () -> journal.replay(1));
+    }
+
+    @Test
+    void testCannotReplayIntoRecordingEngine() {
+        MoveJournal journal = new MoveJournal();
+        GameEngine engine = playRecorded(journal, 1L, 3);
+        assertThrows(IllegalArgumentException.class, () -> journal.replayInto(engine, 0));
+    }
+
+    @Test
+    void testWriteReadRoundTrip() throws IOException {
+        MoveJournal journal = new MoveJournal();
+        GameEngine original = playRecorded(journal, 42L, 200);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        journal.writeTo(Channels.newChannel(bytes));
+        assertEquals(MoveJournal.HEADER_BYTES + journal.size() * 8L, bytes.size());
+
+        MoveJournal loaded = MoveJournal.readFrom(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(journal.size(), loaded.size());
+        assertEquals(42L, loaded.getSeed());
+        assertSameBoard(original, loaded.replay(loaded.size()));
+    }
+
+    @Test
+    void testReadRejectsBadInput() {
+        byte[] garbage = new byte[MoveJournal.HEADER_BYTES];
+        assertThrows(IOException.class,
+                () -> MoveJournal.readFrom(Channels.newChannel(new ByteArrayInputStream(garbage))));
+    }
+
+    // A written journal with its version, flags and move count replaced.
+    private static byte[] patched(int version, int flags, int count) throws IOException {
+        MoveJournal journal = new MoveJournal();
+        playRecorded(journal, 42L, 10);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        journal.writeTo(Channels.newChannel(bytes));
+        byte[] data = bytes.toByteArray();
+        ByteBuffer.wrap(data).putShort(4, (short) version).putShort(6, (short) flags)
+                .putInt(MoveJournal.HEADER_BYTES - 4, count < 0 ? journal.size() : count);
+        return data;
+    }
+
+    private static MoveJournal read(byte[] data) throws IOException {
+        return MoveJournal.readFrom(Channels.newChannel(new ByteArrayInputStream(data)));
+    }
+
+    @Test
+    void testReadChecksVersionAndFlags() throws IOException {
+        MoveJournal old = read(patched(1, 0, -1));
+        assertFalse(old.isFirstClickSafe(), "Version 1 games were dealt up front");
+        assertTrue(read(patched(2, 2, -1)).isFirstClickSafe());
+
+        assertThrows(IOException.class, () -> read(patched(1, 2, -1)), "Version 1 had no first-click flag");
+        assertThrows(IOException.class, () -> read(patched(2, 4, -1)));
+        assertThrows(IOException.class, () -> read(patched(3, 0, -1)));
+    }
+
+    @Test
+    void testReadDoesNotTrustTheMoveCount() {
+        assertThrows(EOFException.class, () -> read(patched(2, 0, Integer.MAX_VALUE)));
+    }
+
+    @Test
+    void testReadRejectsTruncatedJournal() throws IOException {
+        MoveJournal journal = new MoveJournal();
+        playRecorded(journal, 42L, 10);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        journal.writeTo(Channels.newChannel(bytes));
+        byte[] cut = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 3);
+
+        assertThrows(EOFException.class,
+                () -> MoveJournal.readFrom(Channels.newChannel(new ByteArrayInputStream(cut))));
+    }
+}
@@ -0,0 +1,95 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.SecureRandom;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoGuessGeneratorTest {
+
+    @Test
+    void testFindsExpertBoardSolvableFromOpening() {
+        NoGuessGenerator generator = new NoGuessGenerator();
+        long seed = generator.find(BoardConfig.EXPERT, 1234L).getAsLong();
+
+        GameEngine check = new GameEngine(BoardConfig.EXPERT);
+        assertTrue(NoGuessGenerator.isSolvableWithoutGuessing(check, new Solver(), BoardConfig.EXPERT, seed));
+    }
+
+    @Test
+    void testEngineDealsOpenedNoGuessBoards() {
+        GameEngine engine = new GameEngine(BoardConfig.INTERMEDIATE);
+        engine.setNoGuess(new NoGuessGenerator());
+        engine.newGame(99L);
+
+        assertTrue(engine.isNoGuess());
+        assertTrue(engine.hasOpening());
+        assertTrue(engine.getUncoveredSafeCells() > 0);
+        assertTrue(engine.isInGame());
+        assertEquals(0, engine.getCurrentPlayer(), "the opening is not a move");
+
+        // the solver alone finishes the board from here
+        Solver solver = new Solver();
+        int safeCells = engine.getAllCells() - engine.getTotalMines();
+        while (engine.getUncoveredSafeCells() < safeCells) {
+            solver.solve(engine);
+            assertTrue(solver.safeCount() > 0, "needed a guess");
+            for (int i = 0; i < solver.safeCount(); i++) engine.reveal(solver.safeCell(i));
+        }
+        assertTrue(engine.isInGame(), "no mine was hit");
+    }
+
+    @Test
+    void testFirstCandidateIsRequestedSeed() {
+        assertEquals(42L, NoGuessGenerator.candidateSeed(42L, 0));
+        assertNotEquals(42L, NoGuessGenerator.candidateSeed(42L, 1));
+    }
+
+    @Test
+    void testFindsNothingWhenBudgetRunsOut() {
+        // no zero cell is possible here, so no candidate can pass
+        NoGuessGenerator generator = new NoGuessGenerator(ForkJoinPool.commonPool(), 50);
+        long start = System.nanoTime();
+        assertEquals(OptionalLong.empty(), generator.find(BoardConfig.custom(3, 3, 8), 5L));
+        assertTrue(System.nanoTime() - start < 2_000_000_000L, "search ran past its budget");
+    }
+
+    @Test
+    void testEngineKeepsItsGameWhenNoBoardIsFound() {
+        GameEngine engine = new GameEngine(BoardConfig.BEGINNER);
+        engine.newGame(3L);
+        engine.reveal(40);
+        int[] field = engine.getField();
+
+        engine.setNoGuess(new NoGuessGenerator(ForkJoinPool.commonPool(), 50));
+        assertThrows(IllegalStateException.class, () -> engine.newGame(BoardConfig.custom(3, 3, 8), 5L));
+        assertEquals(BoardConfig.BEGINNER, engine.getConfig());
+        assertEquals(3L, engine.getSeed());
+        assertArrayEquals(field, engine.getField());
+    }
+
+    @Test
+    void testRejectsGeneratorsTheSearchDoesNotUse() {
+        GameEngine secure = new GameEngine(BoardConfig.BEGINNER, new SecureRandom());
+        assertThrows(IllegalStateException.class, () -> secure.setNoGuess(new NoGuessGenerator()));
+        GameEngine plain = new GameEngine(BoardConfig.BEGINNER, new Random());
+        assertThrows(IllegalStateException.class, () -> plain.setNoGuess(new NoGuessGenerator()));
+    }
+
+    @Test
+    void testJournalReplaysOpening() {
+        GameEngine engine = new GameEngine(BoardConfig.BEGINNER);
+        engine.setNoGuess(new NoGuessGenerator());
+        MoveJournal journal = new MoveJournal();
+        engine.setJournal(journal);
+        engine.newGame(8L);
+
+        GameEngine replayed = journal.replay(0);
+        assertTrue(replayed.hasOpening());
+        assertArrayEquals(engine.getField(), replayed.getField());
+    }
+}
@@ -0,0 +1,78 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedCellsTest {
+
+    @Test
+    void testBitsAreIndependentPerCell() {
+        PackedCells cells = new PackedCells(130);
+        cells.setMine(64, true);
+        cells.setRevealed(65, true);
+        cells.setFlag(129, 1);
+
+        assertTrue(cells.isMine(64));
+        assertFalse(cells.isMine(63));
+        assertFalse(cells.isMine(65));
+        assertTrue(cells.isRevealed(65));
+        assertFalse(cells.isRevealed(64));
+        assertTrue(cells.isFlagged(129));
+        assertEquals(1, cells.flagOwner(129));
+        assertEquals(GameEngine.NO_PLAYER, cells.flagOwner(128));
+    }
+
+    @Test
+    void testFlagOwnerCanChangeAndClear() {
+        PackedCells cells = new PackedCells(10);
+        cells.setFlag(3, 0);
+        cells.setFlag(3, 1);
+        assertEquals(1, cells.flagOwner(3), "A cell has a single flag owner");
+
+        cells.clearFlag(3);
+        assertFalse(cells.isFlagged(3));
+    }
+
+    @Test
+    void testCountsShareBytesWithoutClobbering() {
+        PackedCells cells = new PackedCells(5);
+        for (int pos = 0; pos < 5; pos++) {
+            cells.setCount(pos, 8 - pos);
+        }
+        cells.incrementCount(2);
+
+        assertEquals(8, cells.count(0));
+        assertEquals(7, cells.count(1));
+        assertEquals(7, cells.count(2));
+        assertEquals(5, cells.count(3));
+        assertEquals(4, cells.count(4));
+    }
+
+    @Test
+    void testNextMineSkipsEmptyWords() {
+        PackedCells cells = new PackedCells(300);
+        cells.setMine(3, true);
+        cells.setMine(200, true);
+
+        assertEquals(3, cells.nextMine(0));
+        assertEquals(200, cells.nextMine(4));
+        assertEquals(-1, cells.nextMine(201));
+    }
+
+    @Test
+    void testClearResetsEverything() {
+        PackedCells cells = new PackedCells(70);
+        cells.setMine(69, true);
+        cells.setRevealed(1, true);
+        cells.setFlag(2, 0);
+        cells.setCount(3, 4);
+
+        cells.clear();
+
+        assertEquals(-1, cells.nextMine(0));
+        assertFalse(cells.isRevealed(1));
+        assertFalse(cells.isFlagged(2));
+        assertEquals(0, cells.count(3));
+    }
+}
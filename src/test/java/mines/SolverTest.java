@@ -0,0 +1,128 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolverTest {
+
+    // Builds cells with the given mines and revealed positions and computes
+    // the neighbour counts the same way the engine does.
+    private static PackedCells board(int rows, int cols, int[] mines, int[] revealed) {
+        PackedCells cells = new PackedCells(rows * cols);
+        for (int mine : mines) cells.setMine(mine, true);
+        for (int mine : mines) {
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    int r = mine / cols + dr;
+                    int c = mine % cols + dc;
+                    if (r < 0 || r >= rows || c < 0 || c >= cols) continue;
+                    int p = r * cols + c;
+                    if (!cells.isMine(p)) cells.incrementCount(p);
+                }
+            }
+        }
+        for (int pos : revealed) cells.setRevealed(pos, true);
+        return cells;
+    }
+
+    @Test
+    void testSinglePointRules() {
+        // 2x4, mine at (1,0); the top row is revealed: 1 1 0 0
+        PackedCells cells = board(2, 4, new int[]{4}, new int[]{0, 1, 2, 3});
+        Solver solver = new Solver();
+
+        assertEquals(4, solver.solve(cells, 2, 4, 1));
+        assertEquals(1, solver.mineCount());
+        assertEquals(4, solver.mineCell(0));
+        assertEquals(3, solver.safeCount());
+        assertTrue(solver.isSafe(5) && solver.isSafe(6) && solver.isSafe(7));
+    }
+
+    @Test
+    void testPairRuleSolvesOneTwoOne() {
+        // 3x3 with mines at (1,0), (1,2) and (2,1); the top row reads 1 2 1,
+        // which no single number decides on its own.
+        PackedCells cells = board(3, 3, new int[]{3, 5, 7}, new int[]{0, 1, 2});
+        Solver solver = new Solver();
+
+        assertEquals(3, solver.solve(cells, 3, 3, 3));
+        assertTrue(solver.isMine(3));
+        assertTrue(solver.isMine(5));
+        assertTrue(solver.isSafe(4));
+        for (int pos = 6; pos < 9; pos++) {
+            assertFalse(solver.isSafe(pos) || solver.isMine(pos), "row 2 is undecided");
+        }
+    }
+
+    @Test
+    void testSubsetRule() {
+        // 2x3 with a mine at (1,2). (0,2) reads 1 over {4,5}, a subset of
+        // (0,1) reading 1 over {0,3,4,5}, so 0 and 3 are safe.
+        PackedCells cells = board(2, 3, new int[]{5}, new int[]{1, 2});
+        Solver solver = new Solver();
+
+        assertEquals(2, solver.solve(cells, 2, 3, 1));
+        assertTrue(solver.isSafe(0));
+        assertTrue(solver.isSafe(3));
+        assertFalse(solver.isSafe(4) || solver.isMine(4));
+    }
+
+    @Test
+    void testMineTotalDecidesTheRest() {
+        // the 1 2 1 board again, but with both mines found by the top row
+        PackedCells cells = board(3, 3, new int[]{3, 5}, new int[]{0, 1, 2});
+        Solver solver = new Solver();
+
+        assertEquals(6, solver.solve(cells, 3, 3, 2));
+        for (int pos = 6; pos < 9; pos++) {
+            assertTrue(solver.isSafe(pos), "cell " + pos);
+        }
+    }
+
+    @Test
+    void testFlagsAreIgnoredUnlessTrusted() {
+        // a wrong flag on the safe cell next to the 1
+        PackedCells cells = board(1, 3, new int[]{0}, new int[]{1});
+        cells.setFlag(2, 0);
+
+        Solver solver = new Solver();
+        solver.solve(cells, 1, 3, 1);
+        assertFalse(solver.isMine(0), "1 over {0,2} is undecided without the flag");
+
+        Solver trusting = new Solver(true);
+        trusting.solve(cells, 1, 3, 1);
+        assertTrue(trusting.isSafe(0), "trusting the wrong flag gets it wrong");
+    }
+
+    @Test
+    void testDeductionsAreSoundOnRealGames() {
+        Solver solver = new Solver();
+        for (long seed = 1; seed <= 20; seed++) {
+            GameEngine engine = new GameEngine(BoardConfig.EXPERT);
+            engine.newGame(seed);
+            PackedCells cells = engine.getCells();
+            engine.reveal(0);  // the first reveal is an opening
+
+            while (engine.isInGame() && solver.solve(engine) > 0) {
+                for (int i = 0; i < solver.mineCount(); i++) {
+                    assertTrue(cells.isMine(solver.mineCell(i)), "seed " + seed);
+                }
+                if (solver.safeCount() == 0) break;
+                for (int i = 0; i < solver.safeCount(); i++) {
+                    int pos = solver.safeCell(i);
+                    assertFalse(cells.isMine(pos), "seed " + seed);
+                    engine.reveal(pos);
+                }
+            }
+            assertFalse(!engine.isInGame() && !engine.isGameWon(), "solver walked onto a mine, seed " + seed);
+        }
+    }
+
+    @Test
+    void testReusedAcrossBoardSizes() {
+        Solver solver = new Solver();
+        solver.solve(board(2, 4, new int[]{4}, new int[]{0, 1, 2, 3}), 2, 4, 1);
+        assertEquals(3, solver.solve(board(3, 3, new int[]{3, 5, 7}, new int[]{0, 1, 2}), 3, 3, 3));
+    }
+}
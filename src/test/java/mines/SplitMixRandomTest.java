@@ -0,0 +1,41 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SplitMixRandomTest {
+
+    @Test
+    void testSeedReproducesSequence() {
+        SplitMixRandom a = new SplitMixRandom(7L);
+        SplitMixRandom b = new SplitMixRandom(7L);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(a.nextLong(), b.nextLong(), "Same seed should give the same sequence");
+        }
+    }
+
+    @Test
+    void testSetSeedRestartsSequence() {
+        SplitMixRandom random = new SplitMixRandom(7L);
+        int first = random.nextInt(1000);
+        random.nextInt(1000);
+
+        random.setSeed(7L);
+        assertEquals(first, random.nextInt(1000), "setSeed should restart the sequence");
+    }
+
+    @Test
+    void testNextIntStaysInBoundsAndCoversRange() {
+        SplitMixRandom random = new SplitMixRandom(1L);
+        int[] counts = new int[10];
+        for (int i = 0; i < 100000; i++) {
+            int value = random.nextInt(10);
+            assertTrue(value >= 0 && value < 10);
+            counts[value]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 9000 && count < 11000, "Draws should be roughly uniform: " + count);
+        }
+    }
+}
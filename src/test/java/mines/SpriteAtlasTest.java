@@ -0,0 +1,38 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpriteAtlasTest {
+
+    @Test
+    void testOneAtlasPerSize() {
+        SpriteAtlas.preload().join();
+        assertSame(SpriteAtlas.forSize(15), SpriteAtlas.forSize(15));
+        assertNotSame(SpriteAtlas.forSize(15), SpriteAtlas.forSize(30));
+        assertEquals(30, SpriteAtlas.forSize(30).size());
+    }
+
+    @Test
+    void testDrawsTheDecodedTile() throws IOException {
+        BufferedImage expected;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("10.gif")) {
+            expected = ImageIO.read(in);
+        }
+        BufferedImage canvas = new BufferedImage(20, 20, BufferedImage.TYPE_INT_ARGB);
+        SpriteAtlas.forSize(SpriteAtlas.SOURCE_SIZE).draw(canvas.getGraphics(), 10, 5, 5);
+
+        for (int y = 0; y < SpriteAtlas.SOURCE_SIZE; y++) {
+            for (int x = 0; x < SpriteAtlas.SOURCE_SIZE; x++) {
+                assertEquals(expected.getRGB(x, y), canvas.getRGB(x + 5, y + 5), "pixel " + x + "," + y);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TournamentTest {
+
+    private static Tournament solverVsRandom() {
+        return new Tournament(BoardConfig.BEGINNER, Strategy.SolverFlagger::new, Strategy.RandomReveal::new);
+    }
+
+    @Test
+    void testTalliesAddUp() {
+        TournamentResult result = solverVsRandom().run(400, 1L, 2);
+
+        assertEquals(400, result.getGames());
+        assertEquals(400, result.getWinsA() + result.getWinsB() + result.getDraws() + result.getUnfinished());
+        long[] flags = result.getFlagsA();
+        long total = 0;
+        for (long count : flags) total += count;
+        assertEquals(400, total);
+        assertTrue(result.gamesPerSecondPerCore() > 0);
+    }
+
+    @Test
+    void testResultDoesNotDependOnThreadCount() {
+        TournamentResult one = solverVsRandom().run(300, 9L, 1);
+        TournamentResult four = solverVsRandom().run(300, 9L, 4);
+
+        assertEquals(one.getWinsA(), four.getWinsA());
+        assertEquals(one.getWinsB(), four.getWinsB());
+        assertEquals(one.getMineHitsA(), four.getMineHitsA());
+        assertArrayEquals(one.getFlagsA(), four.getFlagsA());
+        assertArrayEquals(one.getFlagsB(), four.getFlagsB());
+    }
+
+    @Test
+    void testSolverBeatsRandom() {
+        TournamentResult result = solverVsRandom().run(400, 3L, 2);
+
+        assertTrue(result.getWinsA() > result.getWinsB(), result.report("solver", "random"));
+        assertTrue(result.getMineHitsB() > result.getMineHitsA());
+    }
+
+    @Test
+    void testSolverMirrorMatchFinishes() {
+        Tournament tournament = new Tournament(BoardConfig.BEGINNER, Strategy.SolverFlagger::new, Strategy.SolverFlagger::new);
+        TournamentResult result = tournament.run(200, 4L, 2);
+        assertEquals(0, result.getUnfinished());
+    }
+
+    @Test
+    void testConfidenceIntervalsAndPercentiles() {
+        TournamentResult result = solverVsRandom().run(200, 5L, 2);
+        double[] ci = result.confidenceInterval(result.getWinsA());
+        double rate = (double) result.getWinsA() / result.getGames();
+        assertTrue(ci[0] <= rate && rate <= ci[1]);
+        assertTrue(ci[1] - ci[0] < 0.2);
+        // a clean sweep either way stays inside its own interval
+        assertEquals(0.0, result.confidenceInterval(0)[0]);
+        assertEquals(1.0, result.confidenceInterval(result.getGames())[1]);
+
+        long[] histogram = {0, 5, 0, 5};
+        assertEquals(2.0, TournamentResult.meanWithMargin(histogram)[0], 1e-9);
+        assertEquals(1, TournamentResult.percentile(histogram, 0.5));
+        assertEquals(3, TournamentResult.percentile(histogram, 0.9));
+    }
+
+    @Test
+    void testUnknownStrategyName() {
+        assertNull(Strategy.named("psychic"));
+        assertTrue(Strategy.named("SOLVER") instanceof Strategy.SolverFlagger);
+    }
+}
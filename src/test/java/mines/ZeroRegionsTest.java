@@ -0,0 +1,126 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZeroRegionsTest {
+
+    @Test
+    void testRegionsMatchASearch() {
+        for (long seed = 1; seed <= 10; seed++) {
+            GameEngine engine = new GameEngine(BoardConfig.custom(30, 40, 90));
+            engine.setFirstClickSafe(false);
+            engine.newGame(seed);
+            ZeroRegions regions = new ZeroRegions();
+
+            int rows = engine.getRows();
+            int cols = engine.getCols();
+            boolean[] seen = new boolean[engine.getAllCells()];
+            int found = 0;
+            for (int pos = 0; pos < seen.length; pos++) {
+                if (!isZero(engine, pos)) {
+                    assertEquals(-1, regions.label(engine, pos));
+                    continue;
+                }
+                if (seen[pos]) {
+                    assertTrue(regions.regionOf(pos) >= 0, "Labelled with its region");
+                    continue;
+                }
+                assertEquals(-1, regions.regionOf(pos), "Not labelled before it is asked for");
+                found++;
+                // breadth-first search over zero cells, collecting the border
+                TreeSet<Integer> zeros = new TreeSet<>();
+                TreeSet<Integer> border = new TreeSet<>();
+                ArrayDeque<Integer> queue = new ArrayDeque<>();
+                queue.add(pos);
+                seen[pos] = true;
+                while (!queue.isEmpty()) {
+                    int p = queue.poll();
+                    zeros.add(p);
+                    for (int n : neighbours(p, rows, cols)) {
+                        if (!isZero(engine, n)) border.add(n);
+                        else if (!seen[n]) { seen[n] = true; queue.add(n); }
+                    }
+                }
+
+                int r = regions.label(engine, pos);
+                assertEquals(r, regions.label(engine, zeros.last()), "Labelled once");
+                TreeSet<Integer> listedZeros = new TreeSet<>();
+                List<Integer> listedBorder = new ArrayList<>();
+                for (int i = regions.start(r); i < regions.borderStart(r); i++) listedZeros.add(regions.cell(i));
+                for (int i = regions.borderStart(r); i < regions.end(r); i++) listedBorder.add(regions.cell(i));
+                assertEquals(zeros, listedZeros, "seed " + seed);
+                assertEquals(regions.borderStart(r) - regions.start(r), zeros.size(), "Zero cells listed once");
+                assertEquals(border.size(), listedBorder.size(), "Border cells listed once");
+                assertEquals(border, new TreeSet<>(listedBorder), "seed " + seed);
+                for (int p : zeros) assertEquals(r, regions.regionOf(p));
+                for (int p : border) assertEquals(-1, regions.regionOf(p));
+
+                assertEquals(Math.min(zeros.first(), border.first()) / cols, regions.minRow(r));
+                assertEquals(Math.max(zeros.last(), border.last()) / cols, regions.maxRow(r));
+            }
+            assertEquals(found, regions.regionCount());
+        }
+    }
+
+    private static boolean isZero(GameEngine engine, int pos) {
+        return !engine.getCells().isMine(pos) && engine.neighborMines(pos) == 0;
+    }
+
+    private static List<Integer> neighbours(int pos, int rows, int cols) {
+        List<Integer> around = new ArrayList<>();
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int r = pos / cols + dr;
+                int c = pos % cols + dc;
+                if ((dr != 0 || dc != 0) && r >= 0 && r < rows && c >= 0 && c < cols) around.add(r * cols + c);
+            }
+        }
+        return around;
+    }
+
+    @Test
+    void testLabellingCountsOnlyTheRegionAndItsBorder() {
+        GameEngine engine = new GameEngine(BoardConfig.custom(200, 200, 4000));
+        engine.setFirstClickSafe(false);
+        engine.newGame(5L);
+        int zero = 0;
+        while (!isZero(engine, zero)) zero++;
+        engine.newGame(5L);  // the same board, counted afresh
+
+        ZeroRegions regions = new ZeroRegions();
+        int r = regions.label(engine, zero);
+        boolean[] listed = new boolean[engine.getAllCells()];
+        for (int i = regions.start(r); i < regions.end(r); i++) listed[regions.cell(i)] = true;
+        for (int pos = 0; pos < listed.length; pos++) {
+            if (pos != zero && engine.getCells().isCounted(pos)) assertTrue(listed[pos], "Counted " + pos);
+        }
+    }
+
+    @Test
+    void testInvalidateForgetsEveryRegion() {
+        GameEngine engine = new GameEngine(BoardConfig.custom(30, 40, 90));
+        engine.setFirstClickSafe(false);
+        engine.newGame(1L);
+        ZeroRegions regions = new ZeroRegions();
+        for (int pos = 0; pos < engine.getAllCells(); pos++) regions.label(engine, pos);
+        assertTrue(regions.regionCount() > 1);
+
+        regions.invalidate();
+        assertEquals(0, regions.regionCount());
+        for (int pos = 0; pos < engine.getAllCells(); pos++) assertEquals(-1, regions.regionOf(pos));
+
+        // a smaller board next, labelled from scratch
+        engine.newGame(BoardConfig.BEGINNER, 2L);
+        int zero = 0;
+        while (!isZero(engine, zero)) zero++;
+        assertEquals(0, regions.label(engine, zero));
+        assertEquals(1, regions.regionCount());
+    }
+}
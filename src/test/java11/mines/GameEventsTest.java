@@ -0,0 +1,118 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.Graphics;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.swing.JLabel;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEventsTest {
+
+    @Test
+    void testEngineEventsAreRecorded() throws Exception {
+        GameEngine engine = new GameEngine();
+        Path file = Files.createTempFile("mines", ".jfr");
+        int zero;
+        try (Recording recording = new Recording()) {
+            recording.enable("mines.NewGame");
+            recording.enable("mines.FloodFill");
+            recording.start();
+
+            engine.newGame(7L);
+            zero = 5 * 16 + 7;  // the first reveal is an opening
+            engine.reveal(zero);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        try {
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            RecordedEvent newGame = find(events, "mines.NewGame");
+            assertEquals(16, newGame.getInt("rows"));
+            assertEquals(40, newGame.getInt("mines"));
+            assertEquals(7L, newGame.getLong("seed"));
+            assertFalse(newGame.getBoolean("noGuess"));
+
+            RecordedEvent flood = find(events, "mines.FloodFill");
+            assertEquals(5, flood.getInt("originRow"));
+            assertEquals(7, flood.getInt("originCol"));
+            assertEquals(engine.getUncoveredSafeCells() - 1, flood.getInt("cellsRevealed"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testEndlessFillsRecordWorldCoordinates(@TempDir Path dir) throws Exception {
+        EndlessWorld world = new EndlessWorld(3L, EndlessWorld.DEFAULT_DENSITY, 0, new ChunkStore(dir));
+        Path file = Files.createTempFile("mines", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("mines.FloodFill");
+            recording.start();
+            world.findEmptyCells(-40, 70);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        try {
+            RecordedEvent flood = find(RecordingFile.readAllEvents(file), "mines.FloodFill");
+            assertEquals(-40, flood.getInt("originRow"));
+            assertEquals(70, flood.getInt("originCol"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testEndlessMovesAndPaintsAreRecorded(@TempDir Path dir) throws Exception {
+        EndlessWorld world = new EndlessWorld(3L, EndlessWorld.DEFAULT_DENSITY, 0, new ChunkStore(dir));
+        EndlessBoard board = new EndlessBoard(new JLabel(), world);
+        int size = Board.DEFAULT_CELL_SIZE;
+        Path file = Files.createTempFile("mines", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("mines.Move");
+            recording.enable("mines.Paint");
+            recording.start();
+            // the cell at world row 0, column 0
+            board.new EndlessAdapter().mousePressed(new MouseEvent(board, MouseEvent.MOUSE_PRESSED, 0, 0,
+                    -board.getLeftCol() * size, -board.getTopRow() * size, 1, false, MouseEvent.BUTTON1));
+            Graphics g = new BufferedImage(size * 4, size * 4, BufferedImage.TYPE_INT_RGB).getGraphics();
+            g.setClip(0, 0, size * 2, size);
+            board.paint(g);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        try {
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            RecordedEvent move = find(events, "mines.Move");
+            assertEquals(0, move.getInt("row"));
+            assertEquals(0, move.getInt("col"));
+            assertEquals("reveal", move.getString("action"));
+            assertEquals(world.getUncoveredSafeCells(), move.getInt("cellsRevealed"));
+            assertEquals(2, find(events, "mines.Paint").getInt("cellsPainted"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + name + " event"));
+    }
+}